@@ -1,6 +1,10 @@
 package com.drugManagement.algorithms;
 
 import com.drugManagement.data.Drug;
+import com.drugManagement.index.NameIndex;
+import com.drugManagement.index.PriceIndex;
+import com.drugManagement.index.SortedDrugView;
+import com.drugManagement.index.SupplierIndex;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -55,6 +59,18 @@ public class SearchingAlgorithms {
         return null;
     }
 
+    /**
+     * Looks up a drug by drugID in a view that is kept sorted by ID.
+     * Unlike {@link #binarySearch(List, String)}, this stays correct however the drug list is reordered.
+     *
+     * @param idView The view of drugs sorted by drugID
+     * @param drugID The ID of the drug to find
+     * @return The found Drug object, or null if not found
+     */
+    public static Drug binarySearch(SortedDrugView<String> idView, String drugID) {
+        return idView.find(drugID);
+    }
+
     /**
      * Performs a flexible search on the list of drugs based on a given predicate.
      * This method can be used to search based on any attribute or combination of attributes.
@@ -81,6 +97,18 @@ public class SearchingAlgorithms {
                 drug.getName().toLowerCase().contains(name.toLowerCase()));
     }
 
+    /**
+     * Searches for drugs by name (case-insensitive, partial match) using a trigram index.
+     * Only drugs sharing every trigram of the query are checked with a substring match.
+     *
+     * @param nameIndex The name index to search
+     * @param name The name (or part of the name) to search for
+     * @return A list of Drug objects that match the name
+     */
+    public static List<Drug> searchByName(NameIndex nameIndex, String name) {
+        return nameIndex.search(name);
+    }
+
     /**
      * Searches for drugs by price range.
      *
@@ -94,6 +122,19 @@ public class SearchingAlgorithms {
                 drug.getPrice() >= minPrice && drug.getPrice() <= maxPrice);
     }
 
+    /**
+     * Searches for drugs by price range using a maintained price index.
+     * This runs in O(log n + k) time, where k is the number of matching drugs.
+     *
+     * @param priceIndex The price index to search
+     * @param minPrice The minimum price
+     * @param maxPrice The maximum price
+     * @return A list of Drug objects within the price range, cheapest first
+     */
+    public static List<Drug> searchByPriceRange(PriceIndex priceIndex, double minPrice, double maxPrice) {
+        return priceIndex.range(minPrice, maxPrice);
+    }
+
     /**
      * Searches for drugs by supplier name (case-insensitive, partial match).
      *
@@ -106,4 +147,16 @@ public class SearchingAlgorithms {
                 drug.getSupplier().stream()
                         .anyMatch(supplier -> supplier.getName().toLowerCase().contains(supplierName.toLowerCase())));
     }
+
+    /**
+     * Searches for drugs by supplier name (case-insensitive, partial match) using a supplier index.
+     * Each supplier name is checked once, regardless of how many drugs it supplies.
+     *
+     * @param supplierIndex The supplier index to search
+     * @param supplierName The name (or part of the name) of the supplier
+     * @return A list of Drug objects supplied by the matching supplier(s)
+     */
+    public static List<Drug> searchBySupplier(SupplierIndex supplierIndex, String supplierName) {
+        return supplierIndex.search(supplierName);
+    }
 }
\ No newline at end of file
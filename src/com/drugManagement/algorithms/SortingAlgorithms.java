@@ -1,103 +1,367 @@
 package com.drugManagement.algorithms;
 
 import com.drugManagement.data.Drug;
+import com.drugManagement.data.Purchase;
 import java.util.List;
 import java.util.Comparator;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToLongFunction;
 
 public class SortingAlgorithms {
 
+    private static final int INSERTION_SORT_THRESHOLD = 24;
+    private static final int NINTHER_THRESHOLD = 128;
+    private static final int PARALLEL_SORT_CUTOFF = 8_192;
+    private static final int RADIX_SORT_THRESHOLD = 256;
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_PASSES = Long.SIZE / RADIX_BITS;
+
     /**
-     * Sorts the list of drugs using the Quick Sort algorithm.
-     * This method is more efficient than Bubble Sort, with an average time complexity of O(n log n).
+     * Sorts the list of drugs using introsort, a Quick Sort that cannot degrade to O(n^2).
+     * The list is copied into an array, sorted there and written back. Pivots are chosen by
+     * median-of-three (ninther on large ranges), runs of equal keys are grouped by a three-way
+     * partition, small ranges finish with insertion sort, and a range that recurses too deeply
+     * falls back to heap sort. The sort is not stable.
      *
      * @param drugs The list of drugs to be sorted
      * @param comparator The comparator to determine the sorting criteria
      */
     public static void quickSort(List<Drug> drugs, Comparator<Drug> comparator) {
-        quickSort(drugs, 0, drugs.size() - 1, comparator);
+        Drug[] array = drugs.toArray(new Drug[0]);
+        introSort(array, 0, array.length, comparator);
+        writeBack(drugs, array);
+    }
+
+    /**
+     * Sorts a range of an array with introsort.
+     *
+     * @param array The array to be sorted
+     * @param from The first index of the range (inclusive)
+     * @param to The last index of the range (exclusive)
+     * @param comparator The comparator to determine the sorting criteria
+     */
+    static <T> void introSort(T[] array, int from, int to, Comparator<? super T> comparator) {
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, to - from)));
+        introSort(array, from, to, depthLimit, comparator);
+    }
+
+    private static <T> void introSort(T[] a, int lo, int hi, int depthLimit, Comparator<? super T> c) {
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(a, lo, hi, c);
+                return;
+            }
+            T pivot = a[choosePivot(a, lo, hi, c)];
+
+            // Three-way partition: [lo, lt) < pivot, [lt, gt] == pivot, (gt, hi) > pivot
+            int lt = lo;
+            int gt = hi - 1;
+            int i = lo;
+            while (i <= gt) {
+                int cmp = c.compare(a[i], pivot);
+                if (cmp < 0) {
+                    swap(a, lt++, i++);
+                } else if (cmp > 0) {
+                    swap(a, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            // Recurse into the smaller side and loop on the larger one to bound the stack depth
+            if (lt - lo < hi - gt - 1) {
+                introSort(a, lo, lt, depthLimit, c);
+                lo = gt + 1;
+            } else {
+                introSort(a, gt + 1, hi, depthLimit, c);
+                hi = lt;
+            }
+        }
+        insertionSort(a, lo, hi, c);
     }
 
-    private static void quickSort(List<Drug> drugs, int low, int high, Comparator<Drug> comparator) {
-        if (low < high) {
-            int partitionIndex = partition(drugs, low, high, comparator);
+    private static <T> int choosePivot(T[] a, int lo, int hi, Comparator<? super T> c) {
+        int n = hi - lo;
+        int mid = lo + n / 2;
+        if (n > NINTHER_THRESHOLD) {
+            int step = n / 8;
+            int first = medianOfThree(a, lo, lo + step, lo + 2 * step, c);
+            int middle = medianOfThree(a, mid - step, mid, mid + step, c);
+            int last = medianOfThree(a, hi - 1 - 2 * step, hi - 1 - step, hi - 1, c);
+            return medianOfThree(a, first, middle, last, c);
+        }
+        return medianOfThree(a, lo, mid, hi - 1, c);
+    }
+
+    private static <T> int medianOfThree(T[] a, int i, int j, int k, Comparator<? super T> c) {
+        if (c.compare(a[i], a[j]) < 0) {
+            if (c.compare(a[j], a[k]) < 0) {
+                return j;
+            }
+            return c.compare(a[i], a[k]) < 0 ? k : i;
+        }
+        if (c.compare(a[k], a[j]) < 0) {
+            return j;
+        }
+        return c.compare(a[k], a[i]) < 0 ? k : i;
+    }
 
-            quickSort(drugs, low, partitionIndex - 1, comparator);
-            quickSort(drugs, partitionIndex + 1, high, comparator);
+    private static <T> void insertionSort(T[] a, int lo, int hi, Comparator<? super T> c) {
+        for (int i = lo + 1; i < hi; i++) {
+            T value = a[i];
+            int j = i - 1;
+            while (j >= lo && c.compare(a[j], value) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = value;
         }
     }
 
-    private static int partition(List<Drug> drugs, int low, int high, Comparator<Drug> comparator) {
-        Drug pivot = drugs.get(high);
-        int i = low - 1;
+    private static <T> void heapSort(T[] a, int lo, int hi, Comparator<? super T> c) {
+        int n = hi - lo;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(a, lo, i, n, c);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, lo, lo + end);
+            siftDown(a, lo, 0, end, c);
+        }
+    }
 
-        for (int j = low; j < high; j++) {
-            if (comparator.compare(drugs.get(j), pivot) <= 0) {
-                i++;
-                swap(drugs, i, j);
+    private static <T> void siftDown(T[] a, int base, int node, int size, Comparator<? super T> c) {
+        T value = a[base + node];
+        while (true) {
+            int child = 2 * node + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && c.compare(a[base + child], a[base + child + 1]) < 0) {
+                child++;
             }
+            if (c.compare(value, a[base + child]) >= 0) {
+                break;
+            }
+            a[base + node] = a[base + child];
+            node = child;
         }
+        a[base + node] = value;
+    }
 
-        swap(drugs, i + 1, high);
-        return i + 1;
+    private static <T> void swap(T[] a, int i, int j) {
+        T temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
     }
 
-    private static void swap(List<Drug> drugs, int i, int j) {
-        Drug temp = drugs.get(i);
-        drugs.set(i, drugs.get(j));
-        drugs.set(j, temp);
+    private static <T> void writeBack(List<T> list, T[] array) {
+        ListIterator<T> it = list.listIterator();
+        for (T value : array) {
+            it.next();
+            it.set(value);
+        }
     }
 
     /**
-     * Sorts the list of drugs using the Merge Sort algorithm.
-     * This method is efficient, with a time complexity of O(n log n) in all cases.
+     * Sorts the list using a stable Merge Sort with a time complexity of O(n log n) in all cases.
+     * The list is copied into an array and merged through a single scratch array of the same size.
      *
-     * @param drugs The list of drugs to be sorted
+     * @param list The list to be sorted
+     * @param comparator The comparator to determine the sorting criteria
+     */
+    public static <T> void mergeSort(List<T> list, Comparator<? super T> comparator) {
+        T[] array = toArray(list);
+        T[] scratch = array.clone();
+        mergeSort(scratch, array, 0, array.length, comparator);
+        writeBack(list, array);
+    }
+
+    /**
+     * Sorts the list using a stable Merge Sort that splits the work across the common
+     * {@link ForkJoinPool}. Ranges smaller than the sequential cutoff are sorted on one thread.
+     * Small lists are sorted sequentially.
+     *
+     * @param list The list to be sorted
      * @param comparator The comparator to determine the sorting criteria
      */
-    public static void mergeSort(List<Drug> drugs, Comparator<Drug> comparator) {
-        if (drugs.size() <= 1) {
+    public static <T> void parallelMergeSort(List<T> list, Comparator<? super T> comparator) {
+        T[] array = toArray(list);
+        T[] scratch = array.clone();
+        if (array.length <= PARALLEL_SORT_CUTOFF || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            mergeSort(scratch, array, 0, array.length, comparator);
+        } else {
+            ForkJoinPool.commonPool().invoke(new MergeSortTask<>(scratch, array, 0, array.length, comparator));
+        }
+        writeBack(list, array);
+    }
+
+    /**
+     * Sorts {@code src[lo, hi)} into {@code dst[lo, hi)}. Both arrays must hold the same elements
+     * in that range on entry; the roles swap at each level so no copying is needed between merges.
+     */
+    private static <T> void mergeSort(T[] src, T[] dst, int lo, int hi, Comparator<? super T> c) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(dst, lo, hi, c);
             return;
         }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, src, lo, mid, c);
+        mergeSort(dst, src, mid, hi, c);
+        merge(src, dst, lo, mid, hi, c);
+    }
 
-        int mid = drugs.size() / 2;
-        List<Drug> left = drugs.subList(0, mid);
-        List<Drug> right = drugs.subList(mid, drugs.size());
+    private static <T> void merge(T[] src, T[] dst, int lo, int mid, int hi, Comparator<? super T> c) {
+        if (c.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && c.compare(src[i], src[j]) <= 0)) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
+    }
 
-        mergeSort(left, comparator);
-        mergeSort(right, comparator);
+    /**
+     * Fork-join form of {@link #mergeSort(Object[], Object[], int, int, Comparator)}.
+     */
+    private static class MergeSortTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
-        merge(drugs, left, right, comparator);
-    }
+        private final T[] src;
+        private final T[] dst;
+        private final int lo;
+        private final int hi;
+        private final Comparator<? super T> comparator;
 
-    private static void merge(List<Drug> drugs, List<Drug> left, List<Drug> right, Comparator<Drug> comparator) {
-        int i = 0, j = 0, k = 0;
+        private MergeSortTask(T[] src, T[] dst, int lo, int hi, Comparator<? super T> comparator) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.comparator = comparator;
+        }
 
-        while (i < left.size() && j < right.size()) {
-            if (comparator.compare(left.get(i), right.get(j)) <= 0) {
-                drugs.set(k++, left.get(i++));
-            } else {
-                drugs.set(k++, right.get(j++));
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_SORT_CUTOFF) {
+                mergeSort(src, dst, lo, hi, comparator);
+                return;
             }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new MergeSortTask<>(dst, src, lo, mid, comparator),
+                    new MergeSortTask<>(dst, src, mid, hi, comparator));
+            merge(src, dst, lo, mid, hi, comparator);
+        }
+    }
+
+    /**
+     * Sorts the list by a primitive long key using a stable LSD radix sort.
+     * Keys are extracted once into a long array alongside an index permutation, the pair is
+     * sorted one byte at a time, and the permutation is then applied to the list. No comparator
+     * is called, and digit passes on which every key agrees are skipped. Small lists use merge sort.
+     *
+     * @param list The list to be sorted
+     * @param key Extracts the sort key; keys are ordered as signed longs
+     */
+    public static <T> void radixSort(List<T> list, ToLongFunction<? super T> key) {
+        if (list.size() < RADIX_SORT_THRESHOLD) {
+            mergeSort(list, Comparator.comparingLong(key));
+            return;
+        }
+        T[] array = toArray(list);
+        long[] keys = new long[array.length];
+        for (int i = 0; i < array.length; i++) {
+            // Flip the sign bit so that signed order becomes unsigned byte order
+            keys[i] = key.applyAsLong(array[i]) ^ Long.MIN_VALUE;
         }
+        int[] order = radixOrder(keys);
+        T[] sorted = array.clone();
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = array[order[i]];
+        }
+        writeBack(list, sorted);
+    }
+
+    /**
+     * Maps a double to a long whose signed order matches {@link Double#compare(double, double)},
+     * including -0.0 before 0.0 and NaN last.
+     *
+     * @param value The value to be encoded
+     * @return The sortable bits of the value
+     */
+    public static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
 
-        while (i < left.size()) {
-            drugs.set(k++, left.get(i++));
+    /**
+     * Returns the permutation that sorts the keys in unsigned order. The keys array is left
+     * in sorted order as a side effect.
+     */
+    private static int[] radixOrder(long[] keys) {
+        int n = keys.length;
+        int[][] counts = new int[RADIX_PASSES][RADIX];
+        for (long k : keys) {
+            for (int pass = 0; pass < RADIX_PASSES; pass++) {
+                counts[pass][(int) (k >>> (pass * RADIX_BITS)) & (RADIX - 1)]++;
+            }
         }
 
-        while (j < right.size()) {
-            drugs.set(k++, right.get(j++));
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        int[] orderScratch = new int[n];
+        long[] keyScratch = new long[n];
+        for (int pass = 0; pass < RADIX_PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+            int[] count = counts[pass];
+            if (count[(int) (keys[0] >>> shift) & (RADIX - 1)] == n) {
+                continue;
+            }
+            int offset = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int c = count[digit];
+                count[digit] = offset;
+                offset += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = count[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+                keyScratch[slot] = keys[i];
+                orderScratch[slot] = order[i];
+            }
+            long[] keysTemp = keys;
+            keys = keyScratch;
+            keyScratch = keysTemp;
+            int[] orderTemp = order;
+            order = orderScratch;
+            orderScratch = orderTemp;
         }
+        return order;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] toArray(List<T> list) {
+        return (T[]) list.toArray();
     }
 
     // Usage examples:
 
     /**
-     * Sorts the list of drugs by name using Quick Sort.
+     * Sorts the list of drugs by name using Merge Sort, so drugs with the same name keep their order.
      *
      * @param drugs The list of drugs to be sorted
      */
     public static void sortByName(List<Drug> drugs) {
-        quickSort(drugs, Comparator.comparing(Drug::getName));
+        sortByName(drugs, false);
     }
 
     /**
@@ -110,11 +374,79 @@ public class SortingAlgorithms {
     }
 
     /**
-     * Sorts the list of drugs by price using Quick Sort.
+     * Sorts the list of drugs by price using Radix Sort on the sortable bits of each price.
      *
      * @param drugs The list of drugs to be sorted
      */
     public static void sortByPrice(List<Drug> drugs) {
-        quickSort(drugs, Comparator.comparingDouble(Drug::getPrice));
+        radixSort(drugs, drug -> sortableBits(drug.getPrice()));
+    }
+
+    /**
+     * Sorts the list of drugs by stock level using Radix Sort.
+     *
+     * @param drugs The list of drugs to be sorted
+     */
+    public static void sortByStock(List<Drug> drugs) {
+        radixSort(drugs, Drug::getStock);
+    }
+
+    /**
+     * Sorts the list of purchases by purchase date using Radix Sort on the epoch time.
+     * Purchases without a date come first.
+     *
+     * @param purchases The list of purchases to be sorted
+     */
+    public static void sortByDate(List<Purchase> purchases) {
+        radixSort(purchases, purchase -> purchase.getPurchaseDate() == null
+                ? Long.MIN_VALUE : purchase.getPurchaseDate().getTime());
+    }
+
+    /**
+     * Sorts the list of drugs by name using Merge Sort, optionally in parallel.
+     *
+     * @param drugs The list of drugs to be sorted
+     * @param parallel true to sort on the common fork-join pool
+     */
+    public static void sortByName(List<Drug> drugs, boolean parallel) {
+        sort(drugs, Comparator.comparing(Drug::getName), parallel);
+    }
+
+    /**
+     * Sorts the list of drugs by price, either with Radix Sort or with Merge Sort in parallel.
+     *
+     * @param drugs The list of drugs to be sorted
+     * @param parallel true to sort on the common fork-join pool
+     */
+    public static void sortByPrice(List<Drug> drugs, boolean parallel) {
+        if (parallel) {
+            parallelMergeSort(drugs, Comparator.comparingDouble(Drug::getPrice));
+        } else {
+            sortByPrice(drugs);
+        }
+    }
+
+    /**
+     * Sorts the list of purchases by purchase date, either with Radix Sort or with Merge Sort in parallel.
+     * Either way, purchases without a date come first.
+     *
+     * @param purchases The list of purchases to be sorted
+     * @param parallel true to sort on the common fork-join pool
+     */
+    public static void sortByDate(List<Purchase> purchases, boolean parallel) {
+        if (parallel) {
+            parallelMergeSort(purchases, Comparator.comparing(Purchase::getPurchaseDate,
+                    Comparator.nullsFirst(Comparator.naturalOrder())));
+        } else {
+            sortByDate(purchases);
+        }
+    }
+
+    private static <T> void sort(List<T> list, Comparator<? super T> comparator, boolean parallel) {
+        if (parallel) {
+            parallelMergeSort(list, comparator);
+        } else {
+            mergeSort(list, comparator);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,21 @@
 package com.drugManagement.data;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Represents a customer in the Drug Management System.
  * This class contains information about a customer, including their ID, name, contact information,
  * and purchase history.
+ * The purchase history and running totals may be updated and read from several threads at once.
  */
 public class Customer {
     private String customerID;
     private String name;
     private String contactInfo;
-    private List<Purchase> purchaseHistory;
+    private final SnapshotList<Purchase> purchaseHistory;
+    private int purchaseCount;
+    private long unitsPurchased;
+    private double totalAmountSpent;
 
     /**
      * Constructs a Customer with the specified ID, name, and contact information.
@@ -25,7 +28,7 @@ public class Customer {
         this.customerID = customerID;
         this.name = name;
         this.contactInfo = contactInfo;
-        this.purchaseHistory = new ArrayList<>();
+        this.purchaseHistory = new SnapshotList<>();
     }
 
     /**
@@ -83,41 +86,77 @@ public class Customer {
     }
 
     /**
-     * Gets the purchase history of the customer.
+     * Gets a read-only snapshot of the purchase history of the customer in constant time.
+     * The snapshot does not change when purchases are added or removed afterwards.
      *
      * @return The list of purchases made by the customer
      */
-    public List<Purchase> getPurchaseHistory() {
-        return new ArrayList<>(purchaseHistory);
+    public synchronized List<Purchase> getPurchaseHistory() {
+        return purchaseHistory.snapshot();
     }
 
     /**
-     * Adds a purchase to the customer's purchase history.
+     * Adds a purchase to the customer's purchase history and updates the running totals.
      *
      * @param purchase The purchase to be added
      */
-    public void addPurchase(Purchase purchase) {
+    public synchronized void addPurchase(Purchase purchase) {
         purchaseHistory.add(purchase);
+        countPurchase(purchase);
     }
 
     /**
-     * Removes a purchase from the customer's purchase history.
+     * Updates the running totals for a purchase without adding it to the purchase history,
+     * for when purchases are kept elsewhere.
+     *
+     * @param purchase The purchase to be counted
+     */
+    public synchronized void countPurchase(Purchase purchase) {
+        purchaseCount++;
+        unitsPurchased += purchase.getQuantity();
+        totalAmountSpent += purchase.getTotalCost();
+    }
+
+    /**
+     * Removes a purchase from the customer's purchase history and updates the running totals.
+     * The totals are adjusted by the purchase's current quantity and cost, so a purchase
+     * should not be modified while it is in a customer's history.
      *
      * @param purchase The purchase to be removed
      */
-    public void removePurchase(Purchase purchase) {
-        purchaseHistory.remove(purchase);
+    public synchronized void removePurchase(Purchase purchase) {
+        if (purchaseHistory.remove(purchase)) {
+            purchaseCount--;
+            unitsPurchased -= purchase.getQuantity();
+            totalAmountSpent -= purchase.getTotalCost();
+        }
+    }
+
+    /**
+     * Gets the number of purchases in the customer's history in constant time.
+     *
+     * @return The number of purchases
+     */
+    public synchronized int getPurchaseCount() {
+        return purchaseCount;
+    }
+
+    /**
+     * Gets the total number of units the customer has bought in constant time.
+     *
+     * @return The sum of the quantities of all purchases
+     */
+    public synchronized long getUnitsPurchased() {
+        return unitsPurchased;
     }
 
     /**
-     * Calculates the total amount spent by the customer.
+     * Gets the total amount spent by the customer from the running total, in constant time.
      *
      * @return The total amount spent
      */
-    public double getTotalAmountSpent() {
-        return purchaseHistory.stream()
-                .mapToDouble(Purchase::getTotalCost)
-                .sum();
+    public synchronized double getTotalAmountSpent() {
+        return totalAmountSpent;
     }
 
     /**
@@ -126,13 +165,13 @@ public class Customer {
      * @return A string representation of the Customer
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "Customer{" +
                 "customerID='" + customerID + '\'' +
                 ", name='" + name + '\'' +
                 ", contactInfo='" + contactInfo + '\'' +
-                ", purchaseCount=" + purchaseHistory.size() +
-                ", totalAmountSpent=" + getTotalAmountSpent() +
+                ", purchaseCount=" + purchaseCount +
+                ", totalAmountSpent=" + totalAmountSpent +
                 '}';
     }
 
@@ -1,7 +1,11 @@
 package com.drugManagement.data;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a drug in the Drug Management System.
@@ -10,13 +14,26 @@ import java.util.List;
  * @group Synapse
  */
 public class Drug {
+    private static final VarHandle STOCK;
+
+    static {
+        try {
+            STOCK = MethodHandles.lookup().findVarHandle(Drug.class, "stock", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private String drugID;
     private String name;
-    private int stock;
+    private volatile int stock;
     private double price;
     private int quantity;
-    private List<Supplier> supplier;
+    // Copy-on-write, so a sale can walk a drug's suppliers while another thread links or unlinks one
+    private volatile CopyOnWriteArrayList<Supplier> supplier;
     private List<Purchase> purchase;
+    private final SalesStats salesStats = new SalesStats();
+    private final List<DrugChangeListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructs a Drug with the following information:
@@ -43,8 +60,7 @@ public class Drug {
         this.stock = stock;
         this.price = price;
         this.quantity = quantity;
-        this.supplier = new ArrayList<>();
-        this.purchase = new ArrayList<>();
+        this.supplier = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -60,7 +76,13 @@ public class Drug {
      * @param drugID the new DrugID
      */
     public void setDrugID(String drugID) {
+        String oldID = this.drugID;
         this.drugID = drugID;
+        if (oldID == null ? drugID != null : !oldID.equals(drugID)) {
+            for (DrugChangeListener listener : listeners) {
+                listener.drugIDChanged(this, oldID);
+            }
+        }
     }
 
     /**
@@ -76,7 +98,13 @@ public class Drug {
      * @param name the new name of the Drug
      */
     public void setName(String name) {
+        String oldName = this.name;
         this.name = name;
+        if (oldName == null ? name != null : !oldName.equals(name)) {
+            for (DrugChangeListener listener : listeners) {
+                listener.nameChanged(this, oldName);
+            }
+        }
     }
 
     /**
@@ -92,7 +120,50 @@ public class Drug {
      * @param stock the new Stock number of a drug
      */
     public void setStock(int stock) {
-        this.stock = stock;
+        int oldStock = (int) STOCK.getAndSet(this, stock);
+        if (oldStock != stock) {
+            fireStockChanged(oldStock);
+        }
+    }
+
+    /**
+     * Atomically takes units out of stock, unless that would leave the stock below zero.
+     * Concurrent callers never lose each other's updates.
+     * @param quantity the number of units to take
+     * @return true if the units were taken, false if there was not enough stock
+     */
+    public boolean decrementStock(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        while (true) {
+            int current = stock;
+            if (current < quantity) {
+                return false;
+            }
+            if (STOCK.compareAndSet(this, current, current - quantity)) {
+                fireStockChanged(current);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Atomically puts units back into stock
+     * @param quantity the number of units to add
+     */
+    public void incrementStock(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        int previous = (int) STOCK.getAndAdd(this, quantity);
+        fireStockChanged(previous);
+    }
+
+    private void fireStockChanged(int oldStock) {
+        for (DrugChangeListener listener : listeners) {
+            listener.stockChanged(this, oldStock);
+        }
     }
 
     /**
@@ -108,7 +179,13 @@ public class Drug {
      * @param price the new price of the Drug
      */
     public void setPrice(double price) {
+        double oldPrice = this.price;
         this.price = price;
+        if (Double.compare(oldPrice, price) != 0) {
+            for (DrugChangeListener listener : listeners) {
+                listener.priceChanged(this, oldPrice);
+            }
+        }
     }
 
     /**
@@ -128,11 +205,12 @@ public class Drug {
     }
 
     /**
-     * Returns the Suppliers of the Drug
+     * Returns a read-only view of the Suppliers of the Drug. Iterating the view is safe while
+     * suppliers are added or removed concurrently; each iteration sees the list as it was when it began.
      * @return the suppliers of the Drug
      */
     public List<Supplier> getSupplier() {
-        return supplier;
+        return Collections.unmodifiableList(supplier);
     }
 
     /**
@@ -140,7 +218,18 @@ public class Drug {
      * @param supplier the new suppliers of the Drug
      */
     public void setSupplier(List<Supplier> supplier) {
-        this.supplier = supplier;
+        List<Supplier> oldSuppliers = this.supplier;
+        CopyOnWriteArrayList<Supplier> newSuppliers = new CopyOnWriteArrayList<>();
+        newSuppliers.addAllAbsent(supplier);
+        this.supplier = newSuppliers;
+        for (DrugChangeListener listener : listeners) {
+            for (Supplier removed : oldSuppliers) {
+                listener.supplierRemoved(this, removed);
+            }
+            for (Supplier added : newSuppliers) {
+                listener.supplierAdded(this, added);
+            }
+        }
     }
 
     /**
@@ -148,14 +237,35 @@ public class Drug {
      * @param supplier the supplier to add
      */
     public void addSupplier(Supplier supplier) {
-        this.supplier.add(supplier);
+        if (!this.supplier.addIfAbsent(supplier)) {
+            return;
+        }
+        for (DrugChangeListener listener : listeners) {
+            listener.supplierAdded(this, supplier);
+        }
+    }
+
+    /**
+     * Removes a supplier from the drug's supplier list
+     * @param supplier the supplier to remove
+     */
+    public void removeSupplier(Supplier supplier) {
+        if (this.supplier.remove(supplier)) {
+            for (DrugChangeListener listener : listeners) {
+                listener.supplierRemoved(this, supplier);
+            }
+        }
     }
 
     /**
-     * Returns the Purchases of the Drug
+     * Returns the Purchases of the Drug. The list is only created once it is needed;
+     * per-drug metrics should come from {@link #getSalesStats()} instead.
      * @return the purchases of the Drug
      */
     public List<Purchase> getPurchase() {
+        if (purchase == null) {
+            purchase = new ArrayList<>();
+        }
         return purchase;
     }
 
@@ -172,7 +282,31 @@ public class Drug {
      * @param purchase the purchase to add
      */
     public void addPurchase(Purchase purchase) {
-        this.purchase.add(purchase);
+        getPurchase().add(purchase);
+    }
+
+    /**
+     * Returns the running sales statistics of the Drug
+     * @return the sales statistics of the Drug
+     */
+    public SalesStats getSalesStats() {
+        return salesStats;
+    }
+
+    /**
+     * Registers a listener to be notified when this drug changes
+     * @param listener the listener to register
+     */
+    public void addChangeListener(DrugChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a previously registered change listener
+     * @param listener the listener to remove
+     */
+    public void removeChangeListener(DrugChangeListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -0,0 +1,65 @@
+package com.drugManagement.data;
+
+/**
+ * Receives notifications when a tracked attribute of a {@link Drug} changes.
+ * Collections and indexes that key drugs by one of their attributes register
+ * themselves on each drug so they can stay consistent without rescanning.
+ * All methods default to doing nothing, so implementations only override the
+ * notifications they care about.
+ */
+public interface DrugChangeListener {
+
+    /**
+     * Called after the ID of a drug has changed.
+     *
+     * @param drug The drug whose ID changed
+     * @param oldID The ID the drug had before the change
+     */
+    default void drugIDChanged(Drug drug, String oldID) {
+    }
+
+    /**
+     * Called after the price of a drug has changed.
+     *
+     * @param drug The drug whose price changed
+     * @param oldPrice The price the drug had before the change
+     */
+    default void priceChanged(Drug drug, double oldPrice) {
+    }
+
+    /**
+     * Called after the stock of a drug has changed.
+     *
+     * @param drug The drug whose stock changed
+     * @param oldStock The stock the drug had before the change
+     */
+    default void stockChanged(Drug drug, int oldStock) {
+    }
+
+    /**
+     * Called after the name of a drug has changed.
+     *
+     * @param drug The drug whose name changed
+     * @param oldName The name the drug had before the change
+     */
+    default void nameChanged(Drug drug, String oldName) {
+    }
+
+    /**
+     * Called after a supplier has been linked to a drug.
+     *
+     * @param drug The drug that gained a supplier
+     * @param supplier The supplier that was added
+     */
+    default void supplierAdded(Drug drug, Supplier supplier) {
+    }
+
+    /**
+     * Called after a supplier has been unlinked from a drug.
+     *
+     * @param drug The drug that lost a supplier
+     * @param supplier The supplier that was removed
+     */
+    default void supplierRemoved(Drug drug, Supplier supplier) {
+    }
+}
@@ -3,20 +3,49 @@ package com.drugManagement.data;
 import com.drugManagement.data.Drug;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Represents a collection of drugs in the Drug Management System.
  * This class provides methods to add, remove, retrieve, and manage drugs.
+ * Drugs are kept in insertion order, with a hash index from drug ID to storage slot
+ * so that lookups, upserts and removals run in constant time.
+ * {@link #getAllDrugs()} returns an immutable snapshot that is shared by every caller until the
+ * collection next changes.
+ * Writes must be serialized. Lookups may race a write without blocking it: the ID index is a
+ * concurrent map, so a racing lookup sees a stale or missing slot rather than a corrupt map, and
+ * callers that need a consistent answer validate it against their own lock, as optimistic reads do.
  */
 public class DrugCollection {
-    private List<Drug> drugs;
+    private static final int MIN_COMPACTION_SIZE = 16;
+
+    private final SnapshotList<Drug> drugs;
+    private final Map<String, Integer> slotsByID;
+    private final DrugChangeListener idTracker;
+    private final List<DrugIndex> indexes;
+    private int removedSlots;
+    // Bumped after every change has been made, never before, so a snapshot cached under a
+    // generation never predates a change that generation already counts.
+    private volatile long generation;
+    private volatile Generation snapshot;
 
     /**
      * Constructs a new DrugCollection with an empty list of drugs.
      */
     public DrugCollection() {
-        this.drugs = new ArrayList<>();
+        this.drugs = new SnapshotList<>();
+        this.slotsByID = new ConcurrentHashMap<>();
+        this.idTracker = new DrugChangeListener() {
+            @Override
+            public void drugIDChanged(Drug drug, String oldID) {
+                rekey(drug, oldID);
+            }
+        };
+        this.indexes = new ArrayList<>();
     }
 
     /**
@@ -26,13 +55,19 @@ public class DrugCollection {
      * @param drug The drug to be added or updated
      */
     public void addDrug(Drug drug) {
-        for (int i = 0; i < drugs.size(); i++) {
-            if (drugs.get(i).getDrugID().equals(drug.getDrugID())) {
-                drugs.set(i, drug);
-                return;
+        Integer slot = slotsByID.get(drug.getDrugID());
+        if (slot == null) {
+            slotsByID.put(drug.getDrugID(), drugs.size());
+            drugs.add(drug);
+            attach(drug);
+        } else {
+            Drug existing = drugs.set(slot, drug);
+            if (existing != drug) {
+                detach(existing);
+                attach(drug);
             }
         }
-        drugs.add(drug);
+        generation++;
     }
 
     /**
@@ -42,7 +77,16 @@ public class DrugCollection {
      * @return true if the drug was found and removed, false otherwise
      */
     public boolean removeDrug(String drugID) {
-        return drugs.removeIf(drug -> drug.getDrugID().equals(drugID));
+        if (drugID == null) {
+            return false;
+        }
+        Integer slot = slotsByID.remove(drugID);
+        if (slot == null) {
+            return false;
+        }
+        releaseSlot(slot);
+        compactIfSparse();
+        return true;
     }
 
     /**
@@ -52,21 +96,44 @@ public class DrugCollection {
      * @return The drug with the specified ID, or null if not found
      */
     public Drug getDrug(String drugID) {
-        for (Drug drug : drugs) {
-            if (drug.getDrugID().equals(drugID)) {
-                return drug;
-            }
+        if (drugID == null) {
+            return null;
         }
-        return null;
+        Integer slot = slotsByID.get(drugID);
+        return slot == null ? null : drugs.get(slot);
     }
 
     /**
-     * Returns a list of all drugs in the collection.
+     * Returns an immutable snapshot of all drugs in the collection.
+     * The snapshot is built at most once per change to the collection and shares storage with it
+     * where possible, so repeated calls neither copy nor allocate. A snapshot is only cached if
+     * no change completed while it was being built.
      *
-     * @return A list containing all drugs in the collection
+     * @return An unmodifiable list containing all drugs in the collection
      */
     public List<Drug> getAllDrugs() {
-        return new ArrayList<>(drugs);
+        long current = generation;
+        Generation cached = snapshot;
+        if (cached != null && cached.number == current) {
+            return cached.drugs;
+        }
+        List<Drug> drugsNow;
+        if (removedSlots == 0) {
+            drugsNow = drugs.snapshot();
+        } else {
+            List<Drug> live = new ArrayList<>(slotsByID.size());
+            for (int i = 0; i < drugs.size(); i++) {
+                Drug drug = drugs.get(i);
+                if (drug != null) {
+                    live.add(drug);
+                }
+            }
+            drugsNow = Collections.unmodifiableList(live);
+        }
+        if (generation == current) {
+            snapshot = new Generation(current, drugsNow);
+        }
+        return drugsNow;
     }
 
     /**
@@ -75,7 +142,7 @@ public class DrugCollection {
      * @return The number of drugs in the collection
      */
     public int getDrugCount() {
-        return drugs.size();
+        return slotsByID.size();
     }
 
     /**
@@ -85,7 +152,7 @@ public class DrugCollection {
      * @return true if a drug with the specified ID exists, false otherwise
      */
     public boolean containsDrug(String drugID) {
-        return drugs.stream().anyMatch(drug -> drug.getDrugID().equals(drugID));
+        return drugID != null && slotsByID.containsKey(drugID);
     }
 
     /**
@@ -104,10 +171,131 @@ public class DrugCollection {
         return false;
     }
 
+    /**
+     * Reorders the drugs in the collection using the given sorter.
+     * The sorter receives the live, compacted storage list and may only permute it.
+     *
+     * @param sorter The operation that reorders the list in place
+     */
+    public void reorder(Consumer<List<Drug>> sorter) {
+        compact();
+        List<Drug> ordered = new ArrayList<>(drugs.size());
+        for (int i = 0; i < drugs.size(); i++) {
+            ordered.add(drugs.get(i));
+        }
+        sorter.accept(ordered);
+        drugs.clear();
+        slotsByID.clear();
+        for (int i = 0; i < ordered.size(); i++) {
+            drugs.add(ordered.get(i));
+            slotsByID.put(ordered.get(i).getDrugID(), i);
+        }
+        generation++;
+    }
+
+    /**
+     * Registers a secondary index that is kept in sync with the contents of this collection.
+     * Drugs already in the collection are added to the index immediately.
+     *
+     * @param index The index to maintain
+     */
+    public void addIndex(DrugIndex index) {
+        indexes.add(index);
+        for (int i = 0; i < drugs.size(); i++) {
+            Drug drug = drugs.get(i);
+            if (drug != null) {
+                index.add(drug);
+            }
+        }
+    }
+
     /**
      * Clears all drugs from the collection.
      */
     public void clearDrugs() {
+        for (int i = 0; i < drugs.size(); i++) {
+            Drug drug = drugs.get(i);
+            if (drug != null) {
+                detach(drug);
+            }
+        }
         drugs.clear();
+        slotsByID.clear();
+        removedSlots = 0;
+        generation++;
+    }
+
+    /**
+     * Moves a drug to its new key after its ID changed. A drug already stored under
+     * the new ID is replaced, matching the upsert semantics of {@link #addDrug(Drug)}.
+     */
+    private void rekey(Drug drug, String oldID) {
+        Integer slot = slotsByID.get(oldID);
+        if (slot == null || drugs.get(slot) != drug) {
+            return;
+        }
+        slotsByID.remove(oldID);
+        Integer displaced = slotsByID.put(drug.getDrugID(), slot);
+        if (displaced != null) {
+            releaseSlot(displaced);
+            compactIfSparse();
+        }
+    }
+
+    private void releaseSlot(int slot) {
+        detach(drugs.set(slot, null));
+        removedSlots++;
+        generation++;
+    }
+
+    private void attach(Drug drug) {
+        drug.addChangeListener(idTracker);
+        for (DrugIndex index : indexes) {
+            index.add(drug);
+        }
+    }
+
+    private void detach(Drug drug) {
+        drug.removeChangeListener(idTracker);
+        for (DrugIndex index : indexes) {
+            index.remove(drug);
+        }
+    }
+
+    private void compactIfSparse() {
+        if (drugs.size() >= MIN_COMPACTION_SIZE && removedSlots * 2 > drugs.size()) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        if (removedSlots == 0) {
+            return;
+        }
+        int next = 0;
+        for (int i = 0; i < drugs.size(); i++) {
+            Drug drug = drugs.get(i);
+            if (drug != null) {
+                drugs.set(next, drug);
+                slotsByID.put(drug.getDrugID(), next);
+                next++;
+            }
+        }
+        drugs.truncate(next);
+        removedSlots = 0;
+        generation++;
+    }
+
+    /**
+     * A snapshot of the drugs together with the change count it was taken at.
+     */
+    private static class Generation {
+        private final long number;
+        private final List<Drug> drugs;
+
+        private Generation(long number, List<Drug> drugs) {
+            this.number = number;
+            this.drugs = drugs;
+        }
     }
-}
\ No newline at end of file
+}
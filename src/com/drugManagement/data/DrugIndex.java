@@ -0,0 +1,24 @@
+package com.drugManagement.data;
+
+/**
+ * A secondary index over the drugs held by a {@link DrugCollection}.
+ * The collection calls {@link #add(Drug)} and {@link #remove(Drug)} whenever a drug
+ * enters or leaves it; changes to the attributes of a drug that is already indexed are
+ * tracked by the index itself through a {@link DrugChangeListener}.
+ */
+public interface DrugIndex {
+
+    /**
+     * Adds a drug to the index.
+     *
+     * @param drug The drug to be indexed
+     */
+    void add(Drug drug);
+
+    /**
+     * Removes a drug from the index.
+     *
+     * @param drug The drug to be removed
+     */
+    void remove(Drug drug);
+}
@@ -0,0 +1,41 @@
+package com.drugManagement.data;
+
+/**
+ * Thrown when a sale asks for more units of a drug than are in stock.
+ */
+public class InsufficientStockException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final String drugID;
+    private final int requested;
+
+    /**
+     * Constructs an InsufficientStockException.
+     *
+     * @param drugID The ID of the drug that could not be sold
+     * @param requested The quantity that was requested
+     */
+    public InsufficientStockException(String drugID, int requested) {
+        super("Insufficient stock of drug " + drugID + " for a sale of " + requested);
+        this.drugID = drugID;
+        this.requested = requested;
+    }
+
+    /**
+     * Gets the ID of the drug that could not be sold.
+     *
+     * @return The drug ID
+     */
+    public String getDrugID() {
+        return drugID;
+    }
+
+    /**
+     * Gets the quantity that was requested.
+     *
+     * @return The requested quantity
+     */
+    public int getRequested() {
+        return requested;
+    }
+}
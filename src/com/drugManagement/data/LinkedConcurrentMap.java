@@ -0,0 +1,146 @@
+package com.drugManagement.data;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A map that iterates in insertion order, like {@link java.util.LinkedHashMap}, and can be read
+ * while it is being written. Keys are hashed for constant-time lookups, and the entries are also
+ * kept in a skip list by insertion sequence for iteration. Replacing the value of a key keeps its
+ * position.
+ * Writes must be serialized by the caller. Reads never block and never fail because of a
+ * concurrent write; an iteration is weakly consistent and reflects some of the writes made while
+ * it runs. Null keys are not supported.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class LinkedConcurrentMap<K, V> extends AbstractMap<K, V> {
+    private final Map<K, Node<K, V>> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Node<K, V>> order = new ConcurrentSkipListMap<>();
+    private final Set<Map.Entry<K, V>> entries = new Entries();
+    private long nextSequence;
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = nodes.get(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return nodes.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Node<K, V> node = nodes.get(key);
+        if (node != null) {
+            return node.setValue(value);
+        }
+        node = new Node<>(key, value, nextSequence++);
+        order.put(node.sequence, node);
+        nodes.put(key, node);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = nodes.remove(key);
+        if (node == null) {
+            return null;
+        }
+        order.remove(node.sequence);
+        return node.value;
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+        order.clear();
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return entries;
+    }
+
+    private class Entries extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            Iterator<Node<K, V>> inOrder = order.values().iterator();
+            return new Iterator<>() {
+                private Node<K, V> last;
+
+                @Override
+                public boolean hasNext() {
+                    return inOrder.hasNext();
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    last = inOrder.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException("No entry to remove");
+                    }
+                    LinkedConcurrentMap.this.remove(last.key);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+    }
+
+    private static class Node<K, V> implements Map.Entry<K, V> {
+        private final K key;
+        private final long sequence;
+        private volatile V value;
+
+        private Node(K key, V value, long sequence) {
+            this.key = key;
+            this.value = value;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previous = this.value;
+            this.value = value;
+            return previous;
+        }
+    }
+}
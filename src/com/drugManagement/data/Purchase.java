@@ -13,9 +13,11 @@ public class Purchase {
     private Customer customer;
     private int quantity;
     private Date purchaseDate;
+    private double unitPrice;
 
     /**
      * Constructs a Purchase with the specified details.
+     * The unit price is frozen at the drug's current price.
      *
      * @param purchaseID The unique identifier for the purchase
      * @param drug The drug that was purchased
@@ -24,11 +26,27 @@ public class Purchase {
      * @param purchaseDate The date when the purchase was made
      */
     public Purchase(String purchaseID, Drug drug, Customer customer, int quantity, Date purchaseDate) {
+        this(purchaseID, drug, customer, quantity, purchaseDate, drug.getPrice());
+    }
+
+    /**
+     * Constructs a Purchase with the specified details and an explicit unit price.
+     *
+     * @param purchaseID The unique identifier for the purchase
+     * @param drug The drug that was purchased
+     * @param customer The customer who made the purchase
+     * @param quantity The quantity of the drug purchased
+     * @param purchaseDate The date when the purchase was made
+     * @param unitPrice The price of one unit of the drug at the time of purchase
+     */
+    public Purchase(String purchaseID, Drug drug, Customer customer, int quantity, Date purchaseDate,
+                    double unitPrice) {
         this.purchaseID = purchaseID;
         this.drug = drug;
         this.customer = customer;
         this.quantity = quantity;
         this.purchaseDate = purchaseDate;
+        this.unitPrice = unitPrice;
     }
 
     /**
@@ -122,12 +140,31 @@ public class Purchase {
     }
 
     /**
-     * Calculates the total cost of this purchase.
+     * Gets the unit price the drug was sold at.
+     *
+     * @return The unit price at the time of purchase
+     */
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    /**
+     * Sets the unit price the drug was sold at.
+     *
+     * @param unitPrice The new unit price
+     */
+    public void setUnitPrice(double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    /**
+     * Calculates the total cost of this purchase from the frozen unit price,
+     * so later price changes on the drug do not alter past sales.
      *
      * @return The total cost
      */
     public double getTotalCost() {
-        return drug.getPrice() * quantity;
+        return unitPrice * quantity;
     }
 
     /**
@@ -0,0 +1,120 @@
+package com.drugManagement.data;
+
+/**
+ * Running sales statistics for one drug: units sold, revenue, the time of the last sale and
+ * exponentially decayed sales velocity over a day, a week and a month.
+ * Each velocity is a decayed sum of units sold, where a sale's weight falls by a factor of e
+ * per window length; dividing by the window length gives units per day. Recording a sale and
+ * reading any statistic take constant time and allocate nothing.
+ * Sales may be recorded out of time order; an older sale is decayed to the current reference time
+ * as it is added. The methods are thread-safe.
+ */
+public class SalesStats {
+    /**
+     * The windows over which sales velocity is tracked.
+     */
+    public enum Window {
+        DAY(1),
+        WEEK(7),
+        MONTH(30);
+
+        private final double millis;
+        private final double days;
+
+        Window(int days) {
+            this.days = days;
+            this.millis = days * MILLIS_PER_DAY;
+        }
+    }
+
+    private static final double MILLIS_PER_DAY = 24 * 60 * 60 * 1000.0;
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private long unitsSold;
+    private double revenue;
+    private long lastSaleMillis = NEVER;
+    private long decayedToMillis = NEVER;
+    private double dayWeight;
+    private double weekWeight;
+    private double monthWeight;
+
+    /**
+     * Records a sale.
+     *
+     * @param quantity The number of units sold
+     * @param amount The revenue from the sale
+     * @param saleMillis The time of the sale in epoch millis
+     */
+    public synchronized void record(int quantity, double amount, long saleMillis) {
+        unitsSold += quantity;
+        revenue += amount;
+        if (saleMillis > lastSaleMillis) {
+            lastSaleMillis = saleMillis;
+        }
+        if (decayedToMillis == NEVER) {
+            decayedToMillis = saleMillis;
+        }
+        if (saleMillis > decayedToMillis) {
+            long elapsed = saleMillis - decayedToMillis;
+            dayWeight *= Math.exp(-elapsed / Window.DAY.millis);
+            weekWeight *= Math.exp(-elapsed / Window.WEEK.millis);
+            monthWeight *= Math.exp(-elapsed / Window.MONTH.millis);
+            decayedToMillis = saleMillis;
+            dayWeight += quantity;
+            weekWeight += quantity;
+            monthWeight += quantity;
+        } else {
+            long age = decayedToMillis - saleMillis;
+            dayWeight += quantity * Math.exp(-age / Window.DAY.millis);
+            weekWeight += quantity * Math.exp(-age / Window.WEEK.millis);
+            monthWeight += quantity * Math.exp(-age / Window.MONTH.millis);
+        }
+    }
+
+    /**
+     * Gets the total number of units sold.
+     *
+     * @return The units sold
+     */
+    public synchronized long getUnitsSold() {
+        return unitsSold;
+    }
+
+    /**
+     * Gets the total revenue from sales.
+     *
+     * @return The revenue
+     */
+    public synchronized double getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * Gets the time of the most recent sale.
+     *
+     * @return The time in epoch millis, or {@link Long#MIN_VALUE} if nothing has been sold
+     */
+    public synchronized long getLastSaleMillis() {
+        return lastSaleMillis;
+    }
+
+    /**
+     * Gets the decayed sales velocity over a window, as of the given time.
+     *
+     * @param window The window to measure over
+     * @param nowMillis The time to measure at, in epoch millis
+     * @return The sales velocity in units per day
+     */
+    public synchronized double getVelocity(Window window, long nowMillis) {
+        if (decayedToMillis == NEVER) {
+            return 0;
+        }
+        double weight = switch (window) {
+            case DAY -> dayWeight;
+            case WEEK -> weekWeight;
+            case MONTH -> monthWeight;
+        };
+        long elapsed = Math.max(0, nowMillis - decayedToMillis);
+        return weight * Math.exp(-elapsed / window.millis) / window.days;
+    }
+}
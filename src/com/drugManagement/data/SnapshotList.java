@@ -0,0 +1,189 @@
+package com.drugManagement.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A growable list that hands out immutable point-in-time snapshots in O(1).
+ * A snapshot shares the backing array instead of copying it. Appends only write past the end
+ * of every snapshot taken so far, so they never disturb one; the first in-place change after a
+ * snapshot copies the array once, leaving the snapshot with the old generation.
+ * The list itself is not thread-safe; writes must be serialized and ordered before the reads
+ * that take snapshots, for example by a lock. Snapshots may then be read from any thread.
+ *
+ * @param <T> The type of the elements
+ */
+public class SnapshotList<T> {
+    private static final int INITIAL_CAPACITY = 10;
+
+    private Object[] elements;
+    private int size;
+    private volatile boolean shared;
+
+    /**
+     * Constructs an empty SnapshotList.
+     */
+    public SnapshotList() {
+        this.elements = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Appends an element.
+     *
+     * @param element The element to be added
+     */
+    public void add(T element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+            shared = false;
+        }
+        elements[size++] = element;
+    }
+
+    /**
+     * Inserts an element at the given position, shifting the later elements up. Copies the
+     * backing array first if a snapshot shares it; inserting at the end is an append.
+     *
+     * @param index The position to insert at
+     * @param element The element to be inserted
+     */
+    public void add(int index, T element) {
+        Objects.checkIndex(index, size + 1);
+        if (index == size) {
+            add(element);
+            return;
+        }
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+            shared = false;
+        } else {
+            ensureOwned();
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+    }
+
+    /**
+     * Gets the element at the given position.
+     *
+     * @param index The position of the element
+     * @return The element at that position
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) elements[index];
+    }
+
+    /**
+     * Replaces the element at the given position. Copies the backing array first if a snapshot
+     * shares it.
+     *
+     * @param index The position of the element
+     * @param element The new element
+     * @return The element previously at that position
+     */
+    public T set(int index, T element) {
+        T previous = get(index);
+        ensureOwned();
+        elements[index] = element;
+        return previous;
+    }
+
+    /**
+     * Removes the first occurrence of an element, shifting the later elements down. Copies the
+     * backing array first if a snapshot shares it.
+     *
+     * @param element The element to be removed
+     * @return true if the element was found, false otherwise
+     */
+    public boolean remove(T element) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(elements[i], element)) {
+                ensureOwned();
+                System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+                elements[--size] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops every element from the given position onwards.
+     *
+     * @param newSize The number of elements to keep
+     */
+    public void truncate(int newSize) {
+        Objects.checkIndex(newSize, size + 1);
+        ensureOwned();
+        Arrays.fill(elements, newSize, size, null);
+        size = newSize;
+    }
+
+    /**
+     * Removes all elements. Snapshots keep their contents.
+     */
+    public void clear() {
+        if (shared) {
+            elements = new Object[INITIAL_CAPACITY];
+            shared = false;
+        } else {
+            Arrays.fill(elements, 0, size, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return The number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an immutable view of the current contents. The view does not change when the list
+     * is modified afterwards.
+     *
+     * @return A point-in-time snapshot of the list
+     */
+    public List<T> snapshot() {
+        shared = true;
+        return new Snapshot<>(elements, size);
+    }
+
+    private void ensureOwned() {
+        if (shared) {
+            elements = elements.clone();
+            shared = false;
+        }
+    }
+
+    private static class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        private Snapshot(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.drugManagement.data;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a supplier in the Drug Management System.
@@ -12,7 +14,7 @@ public class Supplier {
     private String supplierID;
     private String name;
     private String contactInfo;
-    private List<Drug> suppliedDrugs;
+    private Set<Drug> suppliedDrugs;
 
     /**
      * Constructs a Supplier with the specified ID, name, and contact information.
@@ -25,7 +27,7 @@ public class Supplier {
         this.supplierID = supplierID;
         this.name = name;
         this.contactInfo = contactInfo;
-        this.suppliedDrugs = new ArrayList<>();
+        this.suppliedDrugs = new LinkedHashSet<>();
     }
 
     /**
@@ -92,25 +94,35 @@ public class Supplier {
     }
 
     /**
-     * Adds a drug to the list of drugs supplied by this supplier.
+     * Adds a drug to the drugs supplied by this supplier in constant time.
+     * Drugs are compared by identity.
      *
      * @param drug The drug to be added
      */
     public void addSuppliedDrug(Drug drug) {
-        if (!suppliedDrugs.contains(drug)) {
-            suppliedDrugs.add(drug);
+        if (suppliedDrugs.add(drug)) {
             drug.addSupplier(this);
         }
     }
 
     /**
-     * Removes a drug from the list of drugs supplied by this supplier.
+     * Removes a drug from the drugs supplied by this supplier.
      *
      * @param drug The drug to be removed
      */
     public void removeSuppliedDrug(Drug drug) {
         suppliedDrugs.remove(drug);
-        drug.getSupplier().remove(this);
+        drug.removeSupplier(this);
+    }
+
+    /**
+     * Checks whether this supplier supplies the given drug, in constant time.
+     *
+     * @param drug The drug to check for
+     * @return true if the drug is supplied by this supplier, false otherwise
+     */
+    public boolean suppliesDrug(Drug drug) {
+        return suppliedDrugs.contains(drug);
     }
 
     /**
@@ -0,0 +1,72 @@
+package com.drugManagement.data;
+
+/**
+ * An immutable link between a supplier and a drug it supplies, identified by their IDs.
+ */
+public final class SupplyLink {
+    private final String supplierID;
+    private final String drugID;
+
+    /**
+     * Constructs a SupplyLink between the given supplier and drug.
+     *
+     * @param supplierID The ID of the supplier
+     * @param drugID The ID of the drug
+     */
+    public SupplyLink(String supplierID, String drugID) {
+        this.supplierID = supplierID;
+        this.drugID = drugID;
+    }
+
+    /**
+     * Gets the supplier ID.
+     *
+     * @return The supplier ID
+     */
+    public String getSupplierID() {
+        return supplierID;
+    }
+
+    /**
+     * Gets the drug ID.
+     *
+     * @return The drug ID
+     */
+    public String getDrugID() {
+        return drugID;
+    }
+
+    /**
+     * Returns a string representation of the SupplyLink.
+     *
+     * @return The supplier ID and drug ID separated by an arrow
+     */
+    @Override
+    public String toString() {
+        return supplierID + "->" + drugID;
+    }
+
+    /**
+     * Checks if this SupplyLink is equal to another object.
+     *
+     * @param obj The object to compare with
+     * @return true if both links join the same supplier and drug IDs, false otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        SupplyLink link = (SupplyLink) obj;
+        return supplierID.equals(link.supplierID) && drugID.equals(link.drugID);
+    }
+
+    /**
+     * Generates a hash code for the SupplyLink.
+     *
+     * @return The hash code
+     */
+    @Override
+    public int hashCode() {
+        return 31 * supplierID.hashCode() + drugID.hashCode();
+    }
+}
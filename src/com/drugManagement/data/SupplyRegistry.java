@@ -0,0 +1,152 @@
+package com.drugManagement.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of which suppliers supply which drugs, keyed by supplier ID and drug ID.
+ * The relation is held as two hashed adjacency maps, one per direction, so linking and unlinking
+ * take constant time and listing either side's partners takes time proportional to their number.
+ * Writes must be serialized, but lookups are safe while the registry is being updated.
+ */
+public class SupplyRegistry {
+    private final Map<String, Set<String>> drugsBySupplier;
+    private final Map<String, Set<String>> suppliersByDrug;
+    private volatile int linkCount;
+
+    /**
+     * Constructs an empty SupplyRegistry.
+     */
+    public SupplyRegistry() {
+        this.drugsBySupplier = new ConcurrentHashMap<>();
+        this.suppliersByDrug = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records that a supplier supplies a drug.
+     *
+     * @param supplierID The ID of the supplier
+     * @param drugID The ID of the drug
+     * @return true if the link is new, false if it already existed
+     */
+    public boolean link(String supplierID, String drugID) {
+        if (!drugsBySupplier.computeIfAbsent(supplierID, id -> Collections.newSetFromMap(new LinkedConcurrentMap<>())).add(drugID)) {
+            return false;
+        }
+        suppliersByDrug.computeIfAbsent(drugID, id -> Collections.newSetFromMap(new LinkedConcurrentMap<>())).add(supplierID);
+        linkCount++;
+        return true;
+    }
+
+    /**
+     * Removes the link between a supplier and a drug.
+     *
+     * @param supplierID The ID of the supplier
+     * @param drugID The ID of the drug
+     * @return true if the link existed, false otherwise
+     */
+    public boolean unlink(String supplierID, String drugID) {
+        if (!removeFrom(drugsBySupplier, supplierID, drugID)) {
+            return false;
+        }
+        removeFrom(suppliersByDrug, drugID, supplierID);
+        linkCount--;
+        return true;
+    }
+
+    /**
+     * Removes every link of a drug.
+     *
+     * @param drugID The ID of the drug
+     * @return The links that were removed
+     */
+    public List<SupplyLink> unlinkDrug(String drugID) {
+        Set<String> supplierIDs = suppliersByDrug.remove(drugID);
+        List<SupplyLink> removed = new ArrayList<>();
+        if (supplierIDs != null) {
+            for (String supplierID : supplierIDs) {
+                removeFrom(drugsBySupplier, supplierID, drugID);
+                removed.add(new SupplyLink(supplierID, drugID));
+            }
+            linkCount -= removed.size();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every link of a supplier.
+     *
+     * @param supplierID The ID of the supplier
+     * @return The links that were removed
+     */
+    public List<SupplyLink> unlinkSupplier(String supplierID) {
+        Set<String> drugIDs = drugsBySupplier.remove(supplierID);
+        List<SupplyLink> removed = new ArrayList<>();
+        if (drugIDs != null) {
+            for (String drugID : drugIDs) {
+                removeFrom(suppliersByDrug, drugID, supplierID);
+                removed.add(new SupplyLink(supplierID, drugID));
+            }
+            linkCount -= removed.size();
+        }
+        return removed;
+    }
+
+    /**
+     * Checks whether a supplier supplies a drug.
+     *
+     * @param supplierID The ID of the supplier
+     * @param drugID The ID of the drug
+     * @return true if the two are linked, false otherwise
+     */
+    public boolean isLinked(String supplierID, String drugID) {
+        Set<String> drugIDs = supplierID == null ? null : drugsBySupplier.get(supplierID);
+        return drugIDs != null && drugIDs.contains(drugID);
+    }
+
+    /**
+     * Returns a read-only view of the IDs of the drugs a supplier supplies, in the order they were linked.
+     *
+     * @param supplierID The ID of the supplier
+     * @return The drug IDs, or an empty set if the supplier has no links
+     */
+    public Set<String> getDrugIDs(String supplierID) {
+        Set<String> drugIDs = supplierID == null ? null : drugsBySupplier.get(supplierID);
+        return drugIDs == null ? Collections.emptySet() : Collections.unmodifiableSet(drugIDs);
+    }
+
+    /**
+     * Returns a read-only view of the IDs of the suppliers of a drug, in the order they were linked.
+     *
+     * @param drugID The ID of the drug
+     * @return The supplier IDs, or an empty set if the drug has no links
+     */
+    public Set<String> getSupplierIDs(String drugID) {
+        Set<String> supplierIDs = drugID == null ? null : suppliersByDrug.get(drugID);
+        return supplierIDs == null ? Collections.emptySet() : Collections.unmodifiableSet(supplierIDs);
+    }
+
+    /**
+     * Returns the number of links in the registry.
+     *
+     * @return The number of supplier-drug links
+     */
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    private static boolean removeFrom(Map<String, Set<String>> adjacency, String key, String value) {
+        Set<String> values = adjacency.get(key);
+        if (values == null || !values.remove(value)) {
+            return false;
+        }
+        if (values.isEmpty()) {
+            adjacency.remove(key);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package com.drugManagement.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk save: how many rows were written and which rows failed.
+ */
+public class BatchResult {
+    private int savedCount;
+    private final List<Failure> failures = new ArrayList<>();
+
+    void recordSaved(int count) {
+        savedCount += count;
+    }
+
+    void recordFailure(int position, String id, SQLException cause) {
+        failures.add(new Failure(position, id, cause));
+    }
+
+    /**
+     * Returns the number of rows that were written.
+     *
+     * @return The number of saved rows
+     */
+    public int getSavedCount() {
+        return savedCount;
+    }
+
+    /**
+     * Returns the rows that could not be written.
+     *
+     * @return The failed rows, in input order
+     */
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Checks whether every row was written.
+     *
+     * @return true if no row failed, false otherwise
+     */
+    public boolean isFullySaved() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "saved=" + savedCount +
+                ", failed=" + failures.size() +
+                '}';
+    }
+
+    /**
+     * A row that could not be written, identified by its position in the input and its ID.
+     */
+    public static class Failure {
+        private final int position;
+        private final String id;
+        private final SQLException cause;
+
+        private Failure(int position, String id, SQLException cause) {
+            this.position = position;
+            this.id = id;
+            this.cause = cause;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public SQLException getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                    "position=" + position +
+                    ", id='" + id + '\'' +
+                    ", cause=" + cause.getMessage() +
+                    '}';
+        }
+    }
+}
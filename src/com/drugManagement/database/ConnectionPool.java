@@ -0,0 +1,390 @@
+package com.drugManagement.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of JDBC connections.
+ * Connections handed out by {@link #borrow()} return themselves to the pool when closed,
+ * so callers keep using try-with-resources as with a plain connection. Idle connections are
+ * validated on borrow and evicted once they have been idle for too long, down to the minimum size.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int totalConnections;
+    private int waitingThreads;
+    private boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * Constructs a ConnectionPool. Connections are opened lazily, and the evictor keeps
+     * the pool at no fewer than {@code minSize} connections once it has grown that large.
+     *
+     * @param url The JDBC URL of the database
+     * @param user The database user
+     * @param password The database password
+     * @param minSize The number of idle connections kept open when the pool is quiet
+     * @param maxSize The maximum number of open connections
+     * @param borrowTimeoutMillis How long {@link #borrow()} waits for a free connection
+     * @param idleTimeoutMillis How long a connection may stay idle before it is closed
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle and the pool
+     * is below its maximum size. Closing the returned connection gives it back to the pool.
+     *
+     * @return A validated connection
+     * @throws SQLException if no connection becomes available before the borrow timeout,
+     *                      or a new connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        while (true) {
+            Connection raw = null;
+            boolean create = false;
+            lock.lock();
+            try {
+                while (idle.isEmpty() && totalConnections >= maxSize) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.incrementAndGet();
+                        throw new SQLException("Timed out after " + borrowTimeoutMillis
+                                + " ms waiting for a connection (max " + maxSize + ")");
+                    }
+                    waitingThreads++;
+                    try {
+                        released.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a connection", e);
+                    } finally {
+                        waitingThreads--;
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    raw = idle.pollFirst().connection;
+                } else {
+                    totalConnections++;
+                    create = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    raw = DriverManager.getConnection(url, user, password);
+                    createdCount.incrementAndGet();
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else if (!isValid(raw)) {
+                discard(raw);
+                continue;
+            }
+            borrowCount.incrementAndGet();
+            return wrap(raw);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool's current state and lifetime counters.
+     *
+     * @return The pool metrics
+     */
+    public Metrics getMetrics() {
+        lock.lock();
+        try {
+            return new Metrics(totalConnections, idle.size(), waitingThreads, borrowCount.get(),
+                    timeoutCount.get(), createdCount.get(), evictedCount.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the pool. Borrowed connections are closed
+     * when they are returned.
+     */
+    @Override
+    public void close() {
+        List<Connection> toClose = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            for (IdleConnection entry : idle) {
+                toClose.add(entry.connection);
+            }
+            totalConnections -= idle.size();
+            idle.clear();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        evictor.shutdownNow();
+        toClose.forEach(ConnectionPool::closeQuietly);
+    }
+
+    private void release(Connection raw) {
+        boolean reusable;
+        try {
+            reusable = !raw.isClosed();
+            if (reusable && !raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                idle.addFirst(new IdleConnection(raw, System.currentTimeMillis()));
+                released.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(raw);
+    }
+
+    private void discard(Connection raw) {
+        lock.lock();
+        try {
+            totalConnections--;
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (raw != null) {
+            closeQuietly(raw);
+        }
+    }
+
+    private void evictIdle() {
+        List<Connection> toClose = new ArrayList<>();
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        lock.lock();
+        try {
+            Iterator<IdleConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && totalConnections > minSize) {
+                IdleConnection entry = oldestFirst.next();
+                if (entry.idleSince > cutoff) {
+                    break;
+                }
+                oldestFirst.remove();
+                totalConnections--;
+                toClose.add(entry.connection);
+            }
+        } finally {
+            lock.unlock();
+        }
+        evictedCount.addAndGet(toClose.size());
+        toClose.forEach(ConnectionPool::closeQuietly);
+    }
+
+    private static boolean isValid(Connection raw) {
+        try {
+            return raw.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection raw) {
+        try {
+            raw.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Connection wrap(Connection raw) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledHandler(raw));
+    }
+
+    /**
+     * Forwards calls to the pooled connection, turning close() into a return to the pool.
+     */
+    private class PooledHandler implements InvocationHandler {
+        private final Connection raw;
+        private boolean returned;
+
+        private PooledHandler(Connection raw) {
+            this.raw = raw;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(raw);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + raw;
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(raw, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long idleSince;
+
+        private IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * A point-in-time view of a pool's size and usage counters.
+     */
+    public static class Metrics {
+        private final int totalConnections;
+        private final int idleConnections;
+        private final int waitingThreads;
+        private final long borrowCount;
+        private final long timeoutCount;
+        private final long createdCount;
+        private final long evictedCount;
+
+        private Metrics(int totalConnections, int idleConnections, int waitingThreads, long borrowCount,
+                        long timeoutCount, long createdCount, long evictedCount) {
+            this.totalConnections = totalConnections;
+            this.idleConnections = idleConnections;
+            this.waitingThreads = waitingThreads;
+            this.borrowCount = borrowCount;
+            this.timeoutCount = timeoutCount;
+            this.createdCount = createdCount;
+            this.evictedCount = evictedCount;
+        }
+
+        public int getTotalConnections() {
+            return totalConnections;
+        }
+
+        public int getIdleConnections() {
+            return idleConnections;
+        }
+
+        public int getActiveConnections() {
+            return totalConnections - idleConnections;
+        }
+
+        public int getWaitingThreads() {
+            return waitingThreads;
+        }
+
+        public long getBorrowCount() {
+            return borrowCount;
+        }
+
+        public long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        public long getEvictedCount() {
+            return evictedCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "total=" + totalConnections +
+                    ", idle=" + idleConnections +
+                    ", active=" + getActiveConnections() +
+                    ", waiting=" + waitingThreads +
+                    ", borrowed=" + borrowCount +
+                    ", timeouts=" + timeoutCount +
+                    ", created=" + createdCount +
+                    ", evicted=" + evictedCount +
+                    '}';
+        }
+    }
+}
@@ -2,194 +2,802 @@ package com.drugManagement.database;
 
 import com.drugManagement.data.*;
 import java.sql.*;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class DatabaseManager {
-    private static final String URL = "jdbc:mysql://localhost:3306/drugManagement";
+    private static final String URL = "jdbc:mysql://localhost:3306/drugManagement?rewriteBatchedStatements=true&useCursorFetch=true";
     private static final String USER = "username";
     private static final String PASSWORD = "password";
 
-    public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+    private static final int DEFAULT_MIN_POOL_SIZE = 2;
+    private static final int DEFAULT_MAX_POOL_SIZE = 10;
+    private static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 5_000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 300_000;
+    private static final int DEFAULT_BATCH_SIZE = 1_000;
+    private static final int FETCH_SIZE = 1_000;
+
+    private static final String SAVE_DRUG_SQL = "INSERT INTO drugs (drugID, name, price, stock) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE name = ?, price = ?, stock = ?";
+    private static final String DECREMENT_STOCK_SQL = "UPDATE drugs SET stock = stock - ? WHERE drugID = ? AND stock >= ?";
+    private static final String INCREMENT_STOCK_SQL = "UPDATE drugs SET stock = stock + ? WHERE drugID = ?";
+    private static final String SAVE_SUPPLIER_SQL = "INSERT INTO suppliers (supplierID, name, contactInfo) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE name = ?, contactInfo = ?";
+    private static final String SAVE_SUPPLY_LINK_SQL = "INSERT IGNORE INTO supplier_drugs (supplierID, drugID) VALUES (?, ?)";
+    private static final String DELETE_SUPPLY_LINK_SQL = "DELETE FROM supplier_drugs WHERE supplierID = ? AND drugID = ?";
+    private static final String SAVE_CUSTOMER_SQL = "INSERT INTO customers (customerID, name, contactInfo) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE name = ?, contactInfo = ?";
+    private static final String LOAD_CHECKPOINT_SQL = "SELECT sequence FROM write_behind_checkpoints WHERE queueID = ?";
+    private static final String SAVE_CHECKPOINT_SQL = "INSERT INTO write_behind_checkpoints (queueID, sequence) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE sequence = ?";
+    private static final String SAVE_PURCHASE_SQL = "INSERT INTO purchases (purchaseID, drugID, customerID, quantity, purchaseDate, unit_price) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static ConnectionPool pool;
+
+    /**
+     * Replaces the connection pool with one of the given size and timeouts.
+     * Idle connections of the previous pool are closed.
+     *
+     * @param minSize The number of idle connections kept open when the pool is quiet
+     * @param maxSize The maximum number of open connections
+     * @param borrowTimeoutMillis How long a caller waits for a free connection
+     * @param idleTimeoutMillis How long a connection may stay idle before it is closed
+     */
+    public static synchronized void configurePool(int minSize, int maxSize,
+                                                  long borrowTimeoutMillis, long idleTimeoutMillis) {
+        ConnectionPool previous = pool;
+        pool = new ConnectionPool(URL, USER, PASSWORD, minSize, maxSize, borrowTimeoutMillis, idleTimeoutMillis);
+        if (previous != null) {
+            previous.close();
+        }
     }
 
-    public static void saveDrug(Drug drug) {
-        String sql = "INSERT INTO drugs (drugID, name, price, stock, description) VALUES (?, ?, ?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE name = ?, price = ?, stock = ?, description = ?";
+    /**
+     * Returns a snapshot of the connection pool's state.
+     *
+     * @return The pool metrics
+     */
+    public static ConnectionPool.Metrics getPoolMetrics() {
+        return pool().getMetrics();
+    }
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /**
+     * Closes the connection pool. A new pool with the default settings is created on next use.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
 
-            pstmt.setString(1, drug.getDrugID());
-            pstmt.setString(2, drug.getName());
-            pstmt.setDouble(3, drug.getPrice());
-            pstmt.setInt(4, drug.getStock());
-            pstmt.setString(6, drug.getName());
-            pstmt.setDouble(7, drug.getPrice());
-            pstmt.setInt(8, drug.getStock());
+    /**
+     * Borrows a connection from the pool. Closing it returns it to the pool.
+     *
+     * @return A pooled connection
+     * @throws SQLException if no connection is available in time
+     */
+    public static Connection getConnection() throws SQLException {
+        return pool().borrow();
+    }
 
+    private static synchronized ConnectionPool pool() {
+        if (pool == null) {
+            pool = new ConnectionPool(URL, USER, PASSWORD, DEFAULT_MIN_POOL_SIZE, DEFAULT_MAX_POOL_SIZE,
+                    DEFAULT_BORROW_TIMEOUT_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+        }
+        return pool;
+    }
 
+    public static void saveDrug(Drug drug) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SAVE_DRUG_SQL)) {
+
+            bindDrug(pstmt, drug);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    public static List<Drug> loadAllDrugs() {
-        List<Drug> drugs = new ArrayList<>();
-        String sql = "SELECT * FROM drugs";
+    public static BatchResult saveDrugs(Collection<Drug> drugs) {
+        return saveDrugs(drugs, DEFAULT_BATCH_SIZE);
+    }
 
+    public static BatchResult saveDrugs(Collection<Drug> drugs, int batchSize) {
+        return saveAll(SAVE_DRUG_SQL, drugs, batchSize, DatabaseManager::bindDrug, Drug::getDrugID);
+    }
+
+    /**
+     * Takes units out of a drug's stock in the database with a relative update, so concurrent
+     * sales never overwrite each other. The update is refused if it would leave the stock below zero.
+     *
+     * @param drugID The ID of the drug
+     * @param quantity The number of units to take
+     * @return true if the stock was decremented, false if there was not enough stock
+     * @throws IllegalStateException if the update could not be run, so a database failure is
+     *         never mistaken for a lack of stock
+     */
+    public static boolean decrementStock(String drugID, int quantity) {
         try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Drug drug = new Drug(
-                        rs.getString("drugID"),
-                        rs.getString("name"),
-                        (int) rs.getDouble("price"),
-                        rs.getInt("stock")
-                );
-                drugs.add(drug);
-            }
+             PreparedStatement pstmt = conn.prepareStatement(DECREMENT_STOCK_SQL)) {
+
+            bindStockDecrement(pstmt, Map.entry(drugID, quantity));
+            return pstmt.executeUpdate() == 1;
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new IllegalStateException("Could not decrement stock of " + drugID, e);
+        }
+    }
+
+    /**
+     * Adds units back to a drug's stock, undoing a decrement whose sale did not go through.
+     *
+     * @param drugID The ID of the drug
+     * @param quantity The number of units to return
+     * @throws IllegalStateException if the update could not be run
+     */
+    public static void incrementStock(String drugID, int quantity) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(INCREMENT_STOCK_SQL)) {
+
+            pstmt.setInt(1, quantity);
+            pstmt.setString(2, drugID);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not return stock of " + drugID, e);
         }
+    }
+
+    /**
+     * Applies many relative stock decrements in JDBC batches. A decrement that would leave a
+     * drug's stock below zero is reported as a failure and leaves that drug unchanged.
+     *
+     * @param decrements Pairs of drug ID and number of units to take
+     * @param batchSize The number of updates per batch
+     * @return The outcome of the updates
+     */
+    public static BatchResult decrementStocks(Collection<Map.Entry<String, Integer>> decrements, int batchSize) {
+        return writeAll(DECREMENT_STOCK_SQL, decrements, batchSize,
+                DatabaseManager::bindStockDecrement, Map.Entry::getKey, true);
+    }
 
+    private static void bindStockDecrement(PreparedStatement pstmt, Map.Entry<String, Integer> decrement)
+            throws SQLException {
+        pstmt.setInt(1, decrement.getValue());
+        pstmt.setString(2, decrement.getKey());
+        pstmt.setInt(3, decrement.getValue());
+    }
+
+    private static void bindDrug(PreparedStatement pstmt, Drug drug) throws SQLException {
+        pstmt.setString(1, drug.getDrugID());
+        pstmt.setString(2, drug.getName());
+        pstmt.setDouble(3, drug.getPrice());
+        pstmt.setInt(4, drug.getStock());
+        pstmt.setString(5, drug.getName());
+        pstmt.setDouble(6, drug.getPrice());
+        pstmt.setInt(7, drug.getStock());
+    }
+
+    public static List<Drug> loadAllDrugs() {
+        List<Drug> drugs = new ArrayList<>();
+        streamDrugs(drugs::add);
         return drugs;
     }
 
-    public static void saveSupplier(Supplier supplier) {
-        String sql = "INSERT INTO suppliers (supplierID, name, contactInfo) VALUES (?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE name = ?, contactInfo = ?";
+    /**
+     * Streams every drug row to the given sink without materializing the table.
+     *
+     * @param sink Receives each drug as it is read
+     * @return The number of rows read
+     * @throws IllegalStateException if the table cannot be read
+     */
+    public static int streamDrugs(Consumer<? super Drug> sink) {
+        return streamAll("SELECT drugID, name, price, stock FROM drugs", rs -> new Drug(
+                rs.getString("drugID"),
+                rs.getString("name"),
+                rs.getInt("stock"),
+                rs.getDouble("price")
+        ), sink);
+    }
 
+    public static void saveSupplier(Supplier supplier) {
         try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, supplier.getSupplierID());
-            pstmt.setString(2, supplier.getName());
-            pstmt.setString(3, supplier.getContactInfo());
-            pstmt.setString(4, supplier.getName());
-            pstmt.setString(5, supplier.getContactInfo());
+             PreparedStatement pstmt = conn.prepareStatement(SAVE_SUPPLIER_SQL)) {
 
+            bindSupplier(pstmt, supplier);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    public static BatchResult saveSuppliers(Collection<Supplier> suppliers) {
+        return saveSuppliers(suppliers, DEFAULT_BATCH_SIZE);
+    }
+
+    public static BatchResult saveSuppliers(Collection<Supplier> suppliers, int batchSize) {
+        return saveAll(SAVE_SUPPLIER_SQL, suppliers, batchSize, DatabaseManager::bindSupplier, Supplier::getSupplierID);
+    }
+
+    private static void bindSupplier(PreparedStatement pstmt, Supplier supplier) throws SQLException {
+        pstmt.setString(1, supplier.getSupplierID());
+        pstmt.setString(2, supplier.getName());
+        pstmt.setString(3, supplier.getContactInfo());
+        pstmt.setString(4, supplier.getName());
+        pstmt.setString(5, supplier.getContactInfo());
+    }
+
     public static List<Supplier> loadAllSuppliers() {
         List<Supplier> suppliers = new ArrayList<>();
-        String sql = "SELECT * FROM suppliers";
+        streamSuppliers(suppliers::add);
+        return suppliers;
+    }
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Supplier supplier = new Supplier(
-                        rs.getString("supplierID"),
-                        rs.getString("name"),
-                        rs.getString("contactInfo")
-                );
-                suppliers.add(supplier);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Streams every supplier row to the given sink without materializing the table.
+     *
+     * @param sink Receives each supplier as it is read
+     * @return The number of rows read
+     * @throws IllegalStateException if the table cannot be read
+     */
+    public static int streamSuppliers(Consumer<? super Supplier> sink) {
+        return streamAll("SELECT supplierID, name, contactInfo FROM suppliers", rs -> new Supplier(
+                rs.getString("supplierID"),
+                rs.getString("name"),
+                rs.getString("contactInfo")
+        ), sink);
+    }
 
-        return suppliers;
+    /**
+     * Saves supplier-drug links to the link table in JDBC batches. Links that are already
+     * stored are left as they are.
+     *
+     * @param links The links to be saved
+     * @return The outcome of the inserts
+     */
+    public static BatchResult saveSupplyLinks(Collection<SupplyLink> links) {
+        return saveSupplyLinks(links, DEFAULT_BATCH_SIZE);
     }
 
-    public static void saveCustomer(Customer customer) {
-        String sql = "INSERT INTO customers (customerID, name, contactInfo) VALUES (?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE name = ?, contactInfo = ?";
+    /**
+     * Saves supplier-drug links to the link table in JDBC batches. Links that are already
+     * stored are left as they are.
+     *
+     * @param links The links to be saved
+     * @param batchSize The number of inserts per batch
+     * @return The outcome of the inserts
+     */
+    public static BatchResult saveSupplyLinks(Collection<SupplyLink> links, int batchSize) {
+        return saveAll(SAVE_SUPPLY_LINK_SQL, links, batchSize, DatabaseManager::bindSupplyLink, SupplyLink::toString);
+    }
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /**
+     * Deletes supplier-drug links from the link table in JDBC batches. Deleting a link that is
+     * not stored is not an error.
+     *
+     * @param links The links to be deleted
+     * @return The outcome of the deletes
+     */
+    public static BatchResult deleteSupplyLinks(Collection<SupplyLink> links) {
+        return deleteSupplyLinks(links, DEFAULT_BATCH_SIZE);
+    }
 
-            pstmt.setString(1, customer.getCustomerID());
-            pstmt.setString(2, customer.getName());
-            pstmt.setString(3, customer.getContactInfo());
-            pstmt.setString(4, customer.getName());
-            pstmt.setString(5, customer.getContactInfo());
+    /**
+     * Deletes supplier-drug links from the link table in JDBC batches. Deleting a link that is
+     * not stored is not an error.
+     *
+     * @param links The links to be deleted
+     * @param batchSize The number of deletes per batch
+     * @return The outcome of the deletes
+     */
+    public static BatchResult deleteSupplyLinks(Collection<SupplyLink> links, int batchSize) {
+        return saveAll(DELETE_SUPPLY_LINK_SQL, links, batchSize, DatabaseManager::bindSupplyLink, SupplyLink::toString);
+    }
+
+    private static void bindSupplyLink(PreparedStatement pstmt, SupplyLink link) throws SQLException {
+        pstmt.setString(1, link.getSupplierID());
+        pstmt.setString(2, link.getDrugID());
+    }
+
+    /**
+     * Streams every row of the supplier-drug link table to the given sink.
+     *
+     * @param sink Receives each link as it is read
+     * @return The number of rows read
+     * @throws IllegalStateException if the table cannot be read
+     */
+    public static int streamSupplyLinks(Consumer<? super SupplyLink> sink) {
+        return streamAll("SELECT supplierID, drugID FROM supplier_drugs", rs -> new SupplyLink(
+                rs.getString("supplierID"),
+                rs.getString("drugID")
+        ), sink);
+    }
+
+    public static void saveCustomer(Customer customer) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SAVE_CUSTOMER_SQL)) {
 
+            bindCustomer(pstmt, customer);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    public static BatchResult saveCustomers(Collection<Customer> customers) {
+        return saveCustomers(customers, DEFAULT_BATCH_SIZE);
+    }
+
+    public static BatchResult saveCustomers(Collection<Customer> customers, int batchSize) {
+        return saveAll(SAVE_CUSTOMER_SQL, customers, batchSize, DatabaseManager::bindCustomer, Customer::getCustomerID);
+    }
+
+    private static void bindCustomer(PreparedStatement pstmt, Customer customer) throws SQLException {
+        pstmt.setString(1, customer.getCustomerID());
+        pstmt.setString(2, customer.getName());
+        pstmt.setString(3, customer.getContactInfo());
+        pstmt.setString(4, customer.getName());
+        pstmt.setString(5, customer.getContactInfo());
+    }
+
     public static List<Customer> loadAllCustomers() {
         List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers";
+        streamCustomers(customers::add);
+        return customers;
+    }
 
+    /**
+     * Streams every customer row to the given sink without materializing the table.
+     *
+     * @param sink Receives each customer as it is read
+     * @return The number of rows read
+     * @throws IllegalStateException if the table cannot be read
+     */
+    public static int streamCustomers(Consumer<? super Customer> sink) {
+        return streamAll("SELECT customerID, name, contactInfo FROM customers", rs -> new Customer(
+                rs.getString("customerID"),
+                rs.getString("name"),
+                rs.getString("contactInfo")
+        ), sink);
+    }
+
+    public static void savePurchase(Purchase purchase) {
         try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Customer customer = new Customer(
-                        rs.getString("customerID"),
-                        rs.getString("name"),
-                        rs.getString("contactInfo")
-                );
-                customers.add(customer);
-            }
+             PreparedStatement pstmt = conn.prepareStatement(SAVE_PURCHASE_SQL)) {
+
+            bindPurchase(pstmt, purchase);
+            pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
+    }
 
-        return customers;
+    public static BatchResult savePurchases(Collection<Purchase> purchases) {
+        return savePurchases(purchases, DEFAULT_BATCH_SIZE);
     }
 
-    public static void savePurchase(Purchase purchase) {
-        String sql = "INSERT INTO purchases (purchaseID, drugID, customerID, quantity, purchaseDate) " +
-                "VALUES (?, ?, ?, ?, ?)";
+    public static BatchResult savePurchases(Collection<Purchase> purchases, int batchSize) {
+        return saveAll(SAVE_PURCHASE_SQL, purchases, batchSize, DatabaseManager::bindPurchase, Purchase::getPurchaseID);
+    }
+
+    private static void bindPurchase(PreparedStatement pstmt, Purchase purchase) throws SQLException {
+        pstmt.setString(1, purchase.getPurchaseID());
+        pstmt.setString(2, purchase.getDrug().getDrugID());
+        pstmt.setString(3, purchase.getCustomer().getCustomerID());
+        pstmt.setInt(4, purchase.getQuantity());
+        pstmt.setDate(5, new java.sql.Date(purchase.getPurchaseDate().getTime()));
+        pstmt.setDouble(6, purchase.getUnitPrice());
+    }
+
+    public static List<Purchase> loadAllPurchases() {
+        Map<String, Drug> drugsByID = new HashMap<>();
+        streamDrugs(drug -> drugsByID.put(drug.getDrugID(), drug));
+        Map<String, Customer> customersByID = new HashMap<>();
+        streamCustomers(customer -> customersByID.put(customer.getCustomerID(), customer));
+
+        List<Purchase> purchases = new ArrayList<>();
+        streamPurchases(drugsByID::get, customersByID::get, purchases::add);
+        return purchases;
+    }
+
+    /**
+     * Streams every purchase row to the given sink, resolving each row's drug and customer
+     * against entities that are already loaded. Every purchase is linked into the purchase
+     * list of its drug and the purchase history of its customer as it is read.
+     * Rows whose drug or customer is unknown share a single placeholder entity per ID.
+     *
+     * @param drugLookup Resolves a drug ID to the loaded drug, or null if unknown
+     * @param customerLookup Resolves a customer ID to the loaded customer, or null if unknown
+     * @param sink Receives each purchase as it is read
+     * @return The number of rows read
+     * @throws IllegalStateException if the table cannot be read
+     */
+    public static int streamPurchases(Function<String, Drug> drugLookup,
+                                      Function<String, Customer> customerLookup,
+                                      Consumer<? super Purchase> sink) {
+        return streamPurchases(drugLookup, customerLookup, true, true, sink);
+    }
+
+    /**
+     * Streams every purchase row to the given sink, resolving each row's drug and customer
+     * against entities that are already loaded. Each purchase keeps the unit price stored with it;
+     * rows saved before the price was stored fall back to the drug's current price.
+     * Rows whose drug or customer is unknown share a single placeholder entity per ID.
+     *
+     * @param drugLookup Resolves a drug ID to the loaded drug, or null if unknown
+     * @param customerLookup Resolves a customer ID to the loaded customer, or null if unknown
+     * @param linkToDrugs true to add each purchase to its drug's purchase list
+     * @param linkToCustomers true to add each purchase to its customer's purchase history
+     * @param sink Receives each purchase as it is read
+     * @return The number of rows read
+     * @throws IllegalStateException if the table cannot be read
+     */
+    public static int streamPurchases(Function<String, Drug> drugLookup,
+                                      Function<String, Customer> customerLookup,
+                                      boolean linkToDrugs,
+                                      boolean linkToCustomers,
+                                      Consumer<? super Purchase> sink) {
+        Map<String, Drug> missingDrugs = new HashMap<>();
+        Map<String, Customer> missingCustomers = new HashMap<>();
+        String sql = "SELECT purchaseID, drugID, customerID, quantity, purchaseDate, unit_price FROM purchases";
+        return streamAll(sql, rs -> {
+            String drugID = rs.getString("drugID");
+            Drug drug = drugLookup.apply(drugID);
+            if (drug == null) {
+                drug = missingDrugs.computeIfAbsent(drugID, id -> new Drug(id, "", 0, 0, 0));
+            }
+            String customerID = rs.getString("customerID");
+            Customer customer = customerLookup.apply(customerID);
+            if (customer == null) {
+                customer = missingCustomers.computeIfAbsent(customerID, id -> new Customer(id, "", ""));
+            }
+
+            double unitPrice = rs.getDouble("unit_price");
+            if (rs.wasNull()) {
+                unitPrice = drug.getPrice();
+            }
+
+            Purchase purchase = new Purchase(
+                    rs.getString("purchaseID"),
+                    drug,
+                    customer,
+                    rs.getInt("quantity"),
+                    rs.getDate("purchaseDate"),
+                    unitPrice
+            );
+            if (linkToDrugs) {
+                drug.addPurchase(purchase);
+            }
+            if (linkToCustomers) {
+                customer.addPurchase(purchase);
+            }
+            return purchase;
+        }, sink);
+    }
+
+    /**
+     * Reads a query forward-only in fetches of {@link #FETCH_SIZE} rows and hands each mapped row
+     * to the sink as it arrives.
+     *
+     * @throws IllegalStateException if the query fails or the calling thread is interrupted, so a
+     *         partly read table is never taken as complete; the thread's interrupt status is kept
+     */
+    private static <T> int streamAll(String sql, RowMapper<T> mapper, Consumer<? super T> sink) {
+        int count = 0;
 
         try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IllegalStateException("Interrupted after " + count + " rows of: " + sql);
+                    }
+                    sink.accept(mapper.map(rs));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read rows for: " + sql, e);
+        }
 
-            pstmt.setString(1, purchase.getPurchaseID());
-            pstmt.setString(2, purchase.getDrug().getDrugID());
-            pstmt.setString(3, purchase.getCustomer().getCustomerID());
-            pstmt.setInt(4, purchase.getQuantity());
-            pstmt.setDate(5, new java.sql.Date(purchase.getPurchaseDate().getTime()));
+        return count;
+    }
 
-            pstmt.executeUpdate();
+    private static <T> BatchResult saveAll(String sql, Collection<T> rows, int batchSize,
+                                           RowBinder<T> binder, Function<T, String> idOf) {
+        return writeAll(sql, rows, batchSize, binder, idOf, false);
+    }
+
+    /**
+     * Writes rows in JDBC batches of {@code batchSize}, committing each batch in its own transaction.
+     * If a batch fails, it is rolled back and its rows are retried one at a time, so a bad row
+     * is reported in the result without losing the rest of the batch. For conditional statements,
+     * a row whose statement matched nothing is reported as a failure as well.
+     */
+    private static <T> BatchResult writeAll(String sql, Collection<T> rows, int batchSize,
+                                            RowBinder<T> binder, Function<T, String> idOf,
+                                            boolean conditional) {
+        checkBatchSize(batchSize);
+        BatchResult result = new BatchResult();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            writeRows(conn, sql, rows, batchSize, binder, idOf, conditional, false, result);
+            conn.setAutoCommit(true);
         } catch (SQLException e) {
-            e.printStackTrace();
+            failRemaining(rows, idOf, e, result);
         }
+        return result;
     }
 
-    public static List<Purchase> loadAllPurchases() {
-        List<Purchase> purchases = new ArrayList<>();
-        String sql = "SELECT * FROM purchases";
+    /**
+     * Writes rows in batches on the given connection. Outside a transaction each batch, or each
+     * row retried on its own, is committed; inside one it is bracketed by a savepoint instead,
+     * so a bad row is undone without undoing the rest of the transaction.
+     */
+    private static <T> void writeRows(Connection conn, String sql, Collection<T> rows, int batchSize,
+                                      RowBinder<T> binder, Function<T, String> idOf, boolean conditional,
+                                      boolean inTransaction, BatchResult result) {
+        List<T> chunk = new ArrayList<>(Math.min(batchSize, rows.size()));
+        int position = 0;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (T row : rows) {
+                chunk.add(row);
+                if (chunk.size() == batchSize) {
+                    writeChunk(conn, pstmt, chunk, position, binder, idOf, conditional, inTransaction, result);
+                    position += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(conn, pstmt, chunk, position, binder, idOf, conditional, inTransaction, result);
+            }
+        } catch (SQLException e) {
+            failRemaining(rows, idOf, e, result);
+        }
+    }
+
+    private static <T> void writeChunk(Connection conn, PreparedStatement pstmt, List<T> chunk, int offset,
+                                       RowBinder<T> binder, Function<T, String> idOf, boolean conditional,
+                                       boolean inTransaction, BatchResult result) throws SQLException {
+        Savepoint chunkStart = inTransaction ? conn.setSavepoint() : null;
+        try {
+            for (T row : chunk) {
+                binder.bind(pstmt, row);
+                pstmt.addBatch();
+            }
+            int[] counts = pstmt.executeBatch();
+            complete(conn, chunkStart);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (conditional && i < counts.length && counts[i] == 0) {
+                    result.recordFailure(offset + i, idOf.apply(chunk.get(i)), noRowMatched(idOf.apply(chunk.get(i))));
+                } else {
+                    result.recordSaved(1);
+                }
+            }
+            return;
+        } catch (BatchUpdateException e) {
+            undo(conn, chunkStart);
+            pstmt.clearBatch();
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            T row = chunk.get(i);
+            Savepoint rowStart = inTransaction ? conn.setSavepoint() : null;
+            try {
+                binder.bind(pstmt, row);
+                int count = pstmt.executeUpdate();
+                complete(conn, rowStart);
+                if (conditional && count == 0) {
+                    result.recordFailure(offset + i, idOf.apply(row), noRowMatched(idOf.apply(row)));
+                } else {
+                    result.recordSaved(1);
+                }
+            } catch (SQLException e) {
+                undo(conn, rowStart);
+                result.recordFailure(offset + i, idOf.apply(row), e);
+            }
+        }
+    }
+
+    private static void complete(Connection conn, Savepoint savepoint) throws SQLException {
+        if (savepoint == null) {
+            conn.commit();
+        } else {
+            conn.releaseSavepoint(savepoint);
+        }
+    }
+
+    private static void undo(Connection conn, Savepoint savepoint) throws SQLException {
+        if (savepoint == null) {
+            conn.rollback();
+        } else {
+            conn.rollback(savepoint);
+        }
+    }
 
+    /**
+     * Reports every row that has no outcome in the result yet as failed with the given cause.
+     */
+    private static <T> void failRemaining(Collection<T> rows, Function<T, String> idOf, SQLException cause,
+                                          BatchResult result) {
+        int done = result.getSavedCount() + result.getFailures().size();
+        int index = 0;
+        for (T row : rows) {
+            if (index >= done) {
+                result.recordFailure(index, idOf.apply(row), cause);
+            }
+            index++;
+        }
+    }
+
+    private static void checkBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+    }
+
+    private static SQLException noRowMatched(String id) {
+        return new SQLException("Condition not met for " + id, "02000");
+    }
+
+    /**
+     * Reads how far the write-behind queue with the given ID has got, as recorded by
+     * {@link Transaction#saveCheckpoint(String, long)}.
+     *
+     * @param queueID The ID of the queue
+     * @return The sequence number of the last change the queue committed, or 0 if it has none
+     * @throws SQLException if the checkpoint cannot be read
+     */
+    public static long loadCheckpoint(String queueID) throws SQLException {
         try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                // Note: This assumes that Drug and Customer objects are already loaded
-                // You might need to join tables or load these separately
-                Drug drug = new Drug(rs.getString("drugID"), "", 0, 0, 0);
-                Customer customer = new Customer(rs.getString("customerID"), "", "");
-
-                Purchase purchase = new Purchase(
-                        rs.getString("purchaseID"),
-                        drug,
-                        customer,
-                        rs.getInt("quantity"),
-                        rs.getDate("purchaseDate")
-                );
-                purchases.add(purchase);
+             PreparedStatement pstmt = conn.prepareStatement(LOAD_CHECKPOINT_SQL)) {
+
+            pstmt.setString(1, queueID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
             }
+        }
+    }
+
+    /**
+     * Starts a transaction in which several batched writes are committed together.
+     *
+     * @return An open transaction; closing it without committing rolls it back
+     * @throws SQLException if no connection is available
+     */
+    public static Transaction beginTransaction() throws SQLException {
+        Connection conn = getConnection();
+        try {
+            conn.setAutoCommit(false);
         } catch (SQLException e) {
-            e.printStackTrace();
+            conn.close();
+            throw e;
+        }
+        return new Transaction(conn);
+    }
+
+    /**
+     * A group of batched writes that is committed or rolled back as one. Rows are written as by
+     * the bulk save methods, except that a row the database rejects is undone through a savepoint
+     * instead of a commit, so the other rows stay part of the transaction.
+     */
+    public static class Transaction implements AutoCloseable {
+        private final Connection conn;
+        private boolean committed;
+
+        private Transaction(Connection conn) {
+            this.conn = conn;
         }
 
-        return purchases;
+        public BatchResult saveDrugs(Collection<Drug> drugs, int batchSize) {
+            return write(SAVE_DRUG_SQL, drugs, batchSize, DatabaseManager::bindDrug, Drug::getDrugID, false);
+        }
+
+        public BatchResult decrementStocks(Collection<Map.Entry<String, Integer>> decrements, int batchSize) {
+            return write(DECREMENT_STOCK_SQL, decrements, batchSize,
+                    DatabaseManager::bindStockDecrement, Map.Entry::getKey, true);
+        }
+
+        public BatchResult saveSuppliers(Collection<Supplier> suppliers, int batchSize) {
+            return write(SAVE_SUPPLIER_SQL, suppliers, batchSize, DatabaseManager::bindSupplier,
+                    Supplier::getSupplierID, false);
+        }
+
+        public BatchResult saveSupplyLinks(Collection<SupplyLink> links, int batchSize) {
+            return write(SAVE_SUPPLY_LINK_SQL, links, batchSize, DatabaseManager::bindSupplyLink,
+                    SupplyLink::toString, false);
+        }
+
+        public BatchResult deleteSupplyLinks(Collection<SupplyLink> links, int batchSize) {
+            return write(DELETE_SUPPLY_LINK_SQL, links, batchSize, DatabaseManager::bindSupplyLink,
+                    SupplyLink::toString, false);
+        }
+
+        public BatchResult saveCustomers(Collection<Customer> customers, int batchSize) {
+            return write(SAVE_CUSTOMER_SQL, customers, batchSize, DatabaseManager::bindCustomer,
+                    Customer::getCustomerID, false);
+        }
+
+        public BatchResult savePurchases(Collection<Purchase> purchases, int batchSize) {
+            return write(SAVE_PURCHASE_SQL, purchases, batchSize, DatabaseManager::bindPurchase,
+                    Purchase::getPurchaseID, false);
+        }
+
+        /**
+         * Records, as part of this transaction, the sequence number of the last change a
+         * write-behind queue has applied.
+         *
+         * @param queueID The ID of the queue
+         * @param sequence The sequence number of the last change in this transaction
+         * @throws SQLException if the checkpoint cannot be written
+         */
+        public void saveCheckpoint(String queueID, long sequence) throws SQLException {
+            try (PreparedStatement pstmt = conn.prepareStatement(SAVE_CHECKPOINT_SQL)) {
+                pstmt.setString(1, queueID);
+                pstmt.setLong(2, sequence);
+                pstmt.setLong(3, sequence);
+                pstmt.executeUpdate();
+            }
+        }
+
+        /**
+         * Commits every write made in this transaction.
+         *
+         * @throws SQLException if the commit fails
+         */
+        public void commit() throws SQLException {
+            conn.commit();
+            committed = true;
+        }
+
+        /**
+         * Rolls the transaction back unless it was committed, and returns the connection to the pool.
+         *
+         * @throws SQLException if the rollback fails
+         */
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (!committed) {
+                    conn.rollback();
+                }
+                conn.setAutoCommit(true);
+            } finally {
+                conn.close();
+            }
+        }
+
+        private <T> BatchResult write(String sql, Collection<T> rows, int batchSize,
+                                      RowBinder<T> binder, Function<T, String> idOf, boolean conditional) {
+            checkBatchSize(batchSize);
+            BatchResult result = new BatchResult();
+            writeRows(conn, sql, rows, batchSize, binder, idOf, conditional, true, result);
+            return result;
+        }
+    }
+
+    /**
+     * Maps the current row of a result set to an entity.
+     */
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Binds the fields of one row to the parameters of a prepared statement.
+     */
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement pstmt, T row) throws SQLException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,521 @@
+package com.drugManagement.database;
+
+import com.drugManagement.data.Customer;
+import com.drugManagement.data.Drug;
+import com.drugManagement.data.Purchase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Holds purchases off the heap in an append-only journal of fixed-width records, spread over
+ * memory-mapped segment files that roll over when full. Each record stores the drug and customer
+ * as ordinals, the quantity, the unit price, the purchase time in epoch millis and the purchase ID.
+ * Records are read in place through a {@link Cursor}; a {@link Purchase} object is only created
+ * when one is asked for.
+ * The journal keeps each customer's records in purchase date order for history queries. History
+ * cursors read those positions in place; they are only copied when a late purchase has to be
+ * inserted among positions a cursor may be reading.
+ * The database remains the system of record: the journal lives for one run, and segment files
+ * left by an earlier run are discarded when it is opened.
+ * Appends are serialized; cursors may be used from any thread while appends continue.
+ */
+public class PurchaseJournal implements AutoCloseable {
+    /** The size of one record in bytes. */
+    public static final int RECORD_BYTES = 64;
+    /** The longest purchase ID a record can hold, in UTF-8 bytes. */
+    public static final int MAX_ID_BYTES = 32;
+
+    private static final int DRUG_OFFSET = 0;
+    private static final int CUSTOMER_OFFSET = 4;
+    private static final int QUANTITY_OFFSET = 8;
+    private static final int ID_LENGTH_OFFSET = 12;
+    private static final int PRICE_OFFSET = 16;
+    private static final int TIME_OFFSET = 24;
+    private static final int ID_OFFSET = 32;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final String SEGMENT_PREFIX = "purchases-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final long[] NO_POSITIONS = new long[0];
+
+    private final Path directory;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final List<FileChannel> channels;
+    private volatile MappedByteBuffer[] segments;
+    private volatile long count;
+    private final Ordinals<Drug> drugs;
+    private final Ordinals<Customer> customers;
+    private final List<Positions> historyByCustomer;
+    private boolean closed;
+
+    /**
+     * Opens an empty journal in the given directory.
+     *
+     * @param directory The directory that holds the segment files
+     * @param segmentRecords The number of records per segment; a power of two of at most 2^24
+     * @throws IOException if the directory cannot be prepared
+     */
+    public PurchaseJournal(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0 || Integer.bitCount(segmentRecords) != 1 || segmentRecords > (1 << 24)) {
+            throw new IllegalArgumentException("Segment size must be a power of two up to 2^24 records");
+        }
+        this.directory = directory;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentRecords);
+        this.segmentMask = segmentRecords - 1;
+        this.channels = new ArrayList<>();
+        this.segments = new MappedByteBuffer[0];
+        this.drugs = new Ordinals<>();
+        this.customers = new Ordinals<>();
+        this.historyByCustomer = new ArrayList<>();
+
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stale) {
+                Files.delete(segment);
+            }
+        }
+    }
+
+    /**
+     * Appends a purchase to the journal.
+     *
+     * @param purchase The purchase to be stored
+     * @return The record number of the stored purchase
+     * @throws IllegalArgumentException if the purchase ID is longer than {@link #MAX_ID_BYTES}
+     */
+    public synchronized long append(Purchase purchase) {
+        if (closed) {
+            throw new IllegalStateException("Purchase journal is closed");
+        }
+        byte[] id = encodeID(purchase.getPurchaseID());
+
+        long record = count;
+        int segment = (int) (record >>> segmentShift);
+        if (segment == segments.length) {
+            addSegment();
+        }
+        MappedByteBuffer buffer = segments[segment];
+        int base = offsetOf(record);
+        int customerOrdinal = customers.ordinalOf(purchase.getCustomer());
+        Date date = purchase.getPurchaseDate();
+        long time = date == null ? NO_DATE : date.getTime();
+        buffer.putInt(base + DRUG_OFFSET, drugs.ordinalOf(purchase.getDrug()));
+        buffer.putInt(base + CUSTOMER_OFFSET, customerOrdinal);
+        buffer.putInt(base + QUANTITY_OFFSET, purchase.getQuantity());
+        buffer.putInt(base + ID_LENGTH_OFFSET, id == null ? -1 : id.length);
+        buffer.putDouble(base + PRICE_OFFSET, purchase.getUnitPrice());
+        buffer.putLong(base + TIME_OFFSET, time);
+        if (id != null) {
+            buffer.put(base + ID_OFFSET, id);
+        }
+
+        while (historyByCustomer.size() <= customerOrdinal) {
+            historyByCustomer.add(new Positions());
+        }
+        historyByCustomer.get(customerOrdinal).insert(record, time);
+        count = record + 1;
+        return record;
+    }
+
+    /**
+     * Checks that a purchase ID fits in a record, so a caller can reject a purchase before acting on it.
+     *
+     * @param purchaseID The purchase ID, which may be null
+     * @throws IllegalArgumentException if the purchase ID is longer than {@link #MAX_ID_BYTES}
+     */
+    public static void checkPurchaseID(String purchaseID) {
+        encodeID(purchaseID);
+    }
+
+    private static byte[] encodeID(String purchaseID) {
+        byte[] id = purchaseID == null ? null : purchaseID.getBytes(StandardCharsets.UTF_8);
+        if (id != null && id.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Purchase ID longer than " + MAX_ID_BYTES + " bytes: " + purchaseID);
+        }
+        return id;
+    }
+
+    /**
+     * Returns a cursor over every record, oldest first.
+     *
+     * @return A cursor over the records appended so far
+     */
+    public Cursor cursor() {
+        return new Cursor(null, 0, count, 1);
+    }
+
+    /**
+     * Returns a cursor over a customer's records in purchase date order.
+     *
+     * @param customer The customer whose history to read
+     * @param newestFirst true to start with the most recent purchase
+     * @return A cursor over the customer's records
+     */
+    public synchronized Cursor history(Customer customer, boolean newestFirst) {
+        Positions history = historyOf(customer);
+        if (history == null) {
+            return new Cursor(NO_POSITIONS, 0, 0, 1);
+        }
+        int end = history.size;
+        long[] positions = history.share();
+        return newestFirst
+                ? new Cursor(positions, end - 1, -1, -1)
+                : new Cursor(positions, 0, end, 1);
+    }
+
+    /**
+     * Returns a read-only list of a customer's purchases in purchase date order, oldest first.
+     * The list shares the customer's record positions instead of copying them, and each element
+     * is decoded from its record when it is read. The list does not change when purchases are
+     * appended afterwards.
+     *
+     * @param customer The customer whose history to read
+     * @return The customer's purchases
+     */
+    public synchronized List<Purchase> historyList(Customer customer) {
+        Positions history = historyOf(customer);
+        if (history == null) {
+            return List.of();
+        }
+        return new HistoryList(history.share(), history.size);
+    }
+
+    /**
+     * Returns a cursor over the records of a customer's purchases made strictly before the given
+     * time, newest first.
+     *
+     * @param customer The customer whose history to read
+     * @param beforeMillis The exclusive upper bound on the purchase time
+     * @return A cursor over the matching records
+     */
+    public synchronized Cursor historyBefore(Customer customer, long beforeMillis) {
+        Positions history = historyOf(customer);
+        if (history == null) {
+            return new Cursor(NO_POSITIONS, 0, 0, 1);
+        }
+        int end = history.firstAtOrAfter(beforeMillis);
+        return new Cursor(history.share(), end - 1, -1, -1);
+    }
+
+    /**
+     * Returns the number of records in the journal.
+     *
+     * @return The number of stored purchases
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Forces every segment's contents out to its file.
+     */
+    public synchronized void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Closes the segment files. Records already mapped remain readable until the buffers are
+     * collected, but no further purchases can be appended.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        channels.clear();
+    }
+
+    private Positions historyOf(Customer customer) {
+        int ordinal = customers.find(customer);
+        return ordinal < 0 || ordinal >= historyByCustomer.size() ? null : historyByCustomer.get(ordinal);
+    }
+
+    private void addSegment() {
+        Path file = directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segments.length, SEGMENT_SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) (segmentMask + 1) * RECORD_BYTES);
+            channels.add(channel);
+            MappedByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[segments.length] = buffer;
+            segments = grown;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map purchase journal segment " + file, e);
+        }
+    }
+
+    private int offsetOf(long record) {
+        return (int) (record & segmentMask) * RECORD_BYTES;
+    }
+
+    private long timeAt(long record) {
+        return segments[(int) (record >>> segmentShift)].getLong(offsetOf(record) + TIME_OFFSET);
+    }
+
+    /**
+     * Reads records in place. Each call to {@link #next()} moves to the next record; the getters
+     * read fields of the current record straight from the mapped segment.
+     */
+    public final class Cursor {
+        private final long[] positions;
+        private final long end;
+        private final int step;
+        private long next;
+        private MappedByteBuffer buffer;
+        private int base;
+
+        private Cursor(long[] positions, long first, long end, int step) {
+            this.positions = positions;
+            this.next = first;
+            this.end = end;
+            this.step = step;
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return true if there is a current record, false once the cursor is exhausted
+         */
+        public boolean next() {
+            if (next == end) {
+                return false;
+            }
+            long record = positions == null ? next : positions[(int) next];
+            next += step;
+            buffer = segments[(int) (record >>> segmentShift)];
+            base = offsetOf(record);
+            return true;
+        }
+
+        /**
+         * Gets the drug of the current record.
+         *
+         * @return The purchased drug
+         */
+        public Drug getDrug() {
+            return drugs.get(buffer.getInt(base + DRUG_OFFSET));
+        }
+
+        /**
+         * Gets the customer of the current record.
+         *
+         * @return The customer
+         */
+        public Customer getCustomer() {
+            return customers.get(buffer.getInt(base + CUSTOMER_OFFSET));
+        }
+
+        /**
+         * Gets the quantity of the current record.
+         *
+         * @return The quantity
+         */
+        public int getQuantity() {
+            return buffer.getInt(base + QUANTITY_OFFSET);
+        }
+
+        /**
+         * Gets the unit price of the current record.
+         *
+         * @return The unit price at the time of purchase
+         */
+        public double getUnitPrice() {
+            return buffer.getDouble(base + PRICE_OFFSET);
+        }
+
+        /**
+         * Gets the total cost of the current record.
+         *
+         * @return The unit price times the quantity
+         */
+        public double getTotalCost() {
+            return getUnitPrice() * getQuantity();
+        }
+
+        /**
+         * Gets the purchase time of the current record.
+         *
+         * @return The purchase time in epoch millis, or {@link Long#MIN_VALUE} if it has no date
+         */
+        public long getEpochMillis() {
+            return buffer.getLong(base + TIME_OFFSET);
+        }
+
+        /**
+         * Gets the purchase ID of the current record. This decodes a new String.
+         *
+         * @return The purchase ID
+         */
+        public String getPurchaseID() {
+            int length = buffer.getInt(base + ID_LENGTH_OFFSET);
+            if (length < 0) {
+                return null;
+            }
+            byte[] id = new byte[length];
+            buffer.get(base + ID_OFFSET, id);
+            return new String(id, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Creates a Purchase object from the current record.
+         *
+         * @return A new Purchase with the record's values
+         */
+        public Purchase toPurchase() {
+            long time = getEpochMillis();
+            return new Purchase(getPurchaseID(), getDrug(), getCustomer(), getQuantity(),
+                    time == NO_DATE ? null : new Date(time), getUnitPrice());
+        }
+    }
+
+    /**
+     * A customer's purchases as a list over shared record positions, decoded on each read.
+     */
+    private final class HistoryList extends AbstractList<Purchase> implements RandomAccess {
+        private final long[] positions;
+        private final int size;
+
+        private HistoryList(long[] positions, int size) {
+            this.positions = positions;
+            this.size = size;
+        }
+
+        @Override
+        public Purchase get(int index) {
+            Objects.checkIndex(index, size);
+            Cursor cursor = new Cursor(positions, index, index + 1, 1);
+            cursor.next();
+            return cursor.toPurchase();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Assigns dense ordinals to objects by identity.
+     */
+    private static class Ordinals<T> {
+        private final Map<T, Integer> ordinals = new IdentityHashMap<>();
+        private volatile Object[] values = new Object[16];
+        private int size;
+
+        private synchronized int ordinalOf(T value) {
+            Integer ordinal = ordinals.get(value);
+            if (ordinal == null) {
+                ordinal = size;
+                Object[] current = values;
+                if (ordinal == current.length) {
+                    current = Arrays.copyOf(current, ordinal * 2);
+                }
+                current[ordinal] = value;
+                values = current;
+                ordinals.put(value, ordinal);
+                size++;
+            }
+            return ordinal;
+        }
+
+        private synchronized int find(T value) {
+            Integer ordinal = ordinals.get(value);
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int ordinal) {
+            return (T) values[ordinal];
+        }
+    }
+
+    /**
+     * A customer's record numbers in purchase time order. Records with the same time keep the
+     * order in which they were appended.
+     * Cursors read the array in place up to the size it had when they were created. Appends in
+     * time order only write past that point, so the array is copied only when it grows or when
+     * a late record would shift positions a cursor may be reading.
+     */
+    private class Positions {
+        private long[] records = new long[4];
+        private int size;
+        private boolean shared;
+
+        private void insert(long record, long time) {
+            boolean late = size > 0 && timeAt(records[size - 1]) > time;
+            if (size == records.length) {
+                records = Arrays.copyOf(records, size * 2);
+                shared = false;
+            } else if (late && shared) {
+                records = records.clone();
+                shared = false;
+            }
+            int at = size;
+            if (late) {
+                at = firstAfter(time);
+                System.arraycopy(records, at, records, at + 1, size - at);
+            }
+            records[at] = record;
+            size++;
+        }
+
+        private long[] share() {
+            shared = true;
+            return records;
+        }
+
+        private int firstAfter(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timeAt(records[mid]) <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int firstAtOrAfter(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timeAt(records[mid]) < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
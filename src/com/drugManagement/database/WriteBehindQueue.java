@@ -0,0 +1,870 @@
+package com.drugManagement.database;
+
+import com.drugManagement.data.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persists entity changes in the background so callers do not wait on database round trips.
+ * Every change is first appended to a local journal file and a bounded in-memory queue; a single
+ * writer thread drains the queue to the database in batches, in the order the changes were made.
+ * Each batch is committed in one database transaction together with the sequence number of its
+ * last change, so when the queue is next opened only the journaled changes past that checkpoint
+ * are replayed, and relative stock decrements are never applied twice.
+ * The journal is truncated whenever the writer has caught up, and rewritten with only the
+ * unwritten changes once it grows well past them, so it stays bounded under continuous load.
+ * Each queued change is a snapshot of the entity at the time it was saved. Changes the database
+ * rejects are dropped; they are counted, reported to the {@link DropListener} if one is set, and
+ * make the next {@link #flush()} fail.
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    /**
+     * What {@link WriteBehindQueue} does when a change is saved while the queue is full.
+     */
+    public enum Backpressure {
+        /** Wait up to the offer timeout for room, then fail. */
+        BLOCK,
+        /** Fail immediately. */
+        FAIL_FAST
+    }
+
+    /**
+     * Receives the changes the database rejected and the queue dropped.
+     */
+    @FunctionalInterface
+    public interface DropListener {
+        /**
+         * Called on the writer thread for each dropped row.
+         *
+         * @param failure The ID of the rejected row and the database's error
+         */
+        void dropped(BatchResult.Failure failure);
+    }
+
+    private enum Kind { DRUG, SUPPLIER, CUSTOMER, PURCHASE, STOCK, LINK, UNLINK }
+
+    private static final long POLL_MILLIS = 100;
+    private static final long RETRY_BACKOFF_MILLIS = 1_000;
+    private static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 30_000;
+    private static final long COMPACTION_MIN_BYTES = 8L << 20;
+
+    private final Path journalFile;
+    private final String queueID;
+    private FileChannel journal;
+    private final int capacity;
+    private final int batchSize;
+    private final Backpressure backpressure;
+    private final long offerTimeoutMillis;
+    private final boolean syncOnWrite;
+
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Semaphore freeSlots;
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progressed = progressLock.newCondition();
+    private final Thread writer;
+    private final NavigableSet<Long> droppedSequences = new ConcurrentSkipListSet<>();
+    private long lastSequence;
+    private long pendingBytes;
+    private volatile long persistedSequence;
+    private volatile long droppedCount;
+    private volatile DropListener dropListener;
+    private volatile boolean running = true;
+    private volatile boolean abandoned;
+
+    /**
+     * Opens a write-behind queue, replaying any changes left in the journal by a previous run.
+     *
+     * @param journalFile The local file that holds changes until they reach the database
+     * @param capacity The maximum number of changes waiting to be written
+     * @param batchSize The maximum number of changes written per database round trip
+     * @param backpressure What to do when the queue is full
+     * @param offerTimeoutMillis How long {@link Backpressure#BLOCK} waits for room
+     * @param syncOnWrite true to force every journal append to disk before returning
+     * @throws IOException if the journal or the queue's database checkpoint cannot be read
+     */
+    public WriteBehindQueue(Path journalFile, int capacity, int batchSize, Backpressure backpressure,
+                            long offerTimeoutMillis, boolean syncOnWrite) throws IOException {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        this.journalFile = journalFile;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.backpressure = backpressure;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.syncOnWrite = syncOnWrite;
+        this.freeSlots = new Semaphore(capacity);
+
+        this.queueID = readQueueID(journalFile);
+        long checkpoint;
+        try {
+            checkpoint = DatabaseManager.loadCheckpoint(queueID);
+        } catch (SQLException e) {
+            throw new IOException("Could not read the write-behind checkpoint of " + journalFile, e);
+        }
+        List<PendingWrite> unwritten = new ArrayList<>();
+        lastSequence = checkpoint;
+        for (PendingWrite write : readJournal(journalFile)) {
+            lastSequence = Math.max(lastSequence, write.sequence);
+            if (write.sequence > checkpoint) {
+                unwritten.add(write);
+                pendingBytes += write.record.length;
+            }
+        }
+        this.journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.persistedSequence = unwritten.isEmpty() ? lastSequence : unwritten.get(0).sequence - 1;
+
+        this.writer = new Thread(this::drain, "write-behind-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        for (PendingWrite write : unwritten) {
+            freeSlots.acquireUninterruptibly();
+            queue.add(write);
+        }
+    }
+
+    /**
+     * Queues a snapshot of a drug for saving.
+     *
+     * @param drug The drug to save
+     */
+    public void saveDrug(Drug drug) {
+        checkOpen();
+        acquireSlot();
+        journalLock.lock();
+        try {
+            // Read under the journal lock, so the stock includes exactly the decrements queued before it
+            int stock = drug.getStock();
+            append(Kind.DRUG, drug.getDrugID(),
+                    new Drug(drug.getDrugID(), drug.getName(), stock, drug.getPrice()),
+                    drug.getDrugID(), drug.getName(), Integer.toString(stock), Double.toString(drug.getPrice()));
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Queues a snapshot of a supplier for saving.
+     *
+     * @param supplier The supplier to save
+     */
+    public void saveSupplier(Supplier supplier) {
+        enqueue(Kind.SUPPLIER, supplier.getSupplierID(),
+                new Supplier(supplier.getSupplierID(), supplier.getName(), supplier.getContactInfo()),
+                supplier.getSupplierID(), supplier.getName(), supplier.getContactInfo());
+    }
+
+    /**
+     * Queues a snapshot of a customer for saving.
+     *
+     * @param customer The customer to save
+     */
+    public void saveCustomer(Customer customer) {
+        enqueue(Kind.CUSTOMER, customer.getCustomerID(),
+                new Customer(customer.getCustomerID(), customer.getName(), customer.getContactInfo()),
+                customer.getCustomerID(), customer.getName(), customer.getContactInfo());
+    }
+
+    /**
+     * Queues a purchase for saving.
+     *
+     * @param purchase The purchase to save
+     */
+    public void savePurchase(Purchase purchase) {
+        Purchase snapshot = purchaseSnapshot(purchase.getPurchaseID(), purchase.getDrug().getDrugID(),
+                purchase.getCustomer().getCustomerID(), purchase.getQuantity(),
+                purchase.getPurchaseDate().getTime(), purchase.getUnitPrice());
+        enqueue(Kind.PURCHASE, purchase.getPurchaseID(), snapshot,
+                purchase.getPurchaseID(), purchase.getDrug().getDrugID(), purchase.getCustomer().getCustomerID(),
+                Integer.toString(purchase.getQuantity()), Long.toString(purchase.getPurchaseDate().getTime()),
+                Double.toString(purchase.getUnitPrice()));
+    }
+
+    /**
+     * Takes units from a drug's in-memory stock and queues the matching relative decrement in one
+     * step, so the queue sees stock changes in the order the drug does and a drug snapshot never
+     * repeats a decrement queued after it. The decrement is written as a conditional
+     * {@code stock = stock - ?} update, so it composes with sales made elsewhere.
+     *
+     * @param drug The drug to take the units from
+     * @param quantity The number of units taken
+     * @return true if the units were taken and queued, false if the drug has too little stock
+     */
+    public boolean decrementStock(Drug drug, int quantity) {
+        checkOpen();
+        acquireSlot();
+        journalLock.lock();
+        try {
+            if (!drug.decrementStock(quantity)) {
+                freeSlots.release();
+                return false;
+            }
+            try {
+                append(Kind.STOCK, drug.getDrugID(), quantity, drug.getDrugID(), Integer.toString(quantity));
+            } catch (RuntimeException e) {
+                drug.incrementStock(quantity);
+                throw e;
+            }
+            return true;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Gives units back to a drug's in-memory stock and queues the matching relative increment in
+     * one step, undoing an earlier {@link #decrementStock(Drug, int)} whose sale did not go through.
+     *
+     * @param drug The drug to return the units to
+     * @param quantity The number of units returned
+     */
+    public void returnStock(Drug drug, int quantity) {
+        checkOpen();
+        acquireSlot();
+        journalLock.lock();
+        try {
+            drug.incrementStock(quantity);
+            try {
+                append(Kind.STOCK, drug.getDrugID(), -quantity, drug.getDrugID(), Integer.toString(-quantity));
+            } catch (RuntimeException e) {
+                drug.decrementStock(quantity);
+                throw e;
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Queues a supplier-drug link for saving.
+     *
+     * @param link The link to save
+     */
+    public void saveSupplyLink(SupplyLink link) {
+        enqueue(Kind.LINK, link.toString(), link, link.getSupplierID(), link.getDrugID());
+    }
+
+    /**
+     * Queues a supplier-drug link for deletion.
+     *
+     * @param link The link to delete
+     */
+    public void deleteSupplyLink(SupplyLink link) {
+        enqueue(Kind.UNLINK, link.toString(), link, link.getSupplierID(), link.getDrugID());
+    }
+
+    /**
+     * Waits until every change queued before this call has been written to the database.
+     *
+     * @throws IllegalStateException if the database rejected any of those changes since the previous flush
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        flush(Long.MAX_VALUE);
+    }
+
+    /**
+     * Waits up to the given time for every change queued before this call to be written.
+     *
+     * @param timeoutMillis The maximum time to wait
+     * @return true if all earlier changes were written, false if the timeout elapsed first
+     * @throws IllegalStateException if the database rejected any of those changes since the previous flush
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long sequence = currentSequence();
+        if (!awaitPersisted(sequence, timeoutMillis)) {
+            return false;
+        }
+        NavigableSet<Long> dropped = droppedSequences.headSet(sequence, true);
+        int count = dropped.size();
+        if (count > 0) {
+            dropped.clear();
+            throw new IllegalStateException(count + " queued changes were rejected by the database and dropped");
+        }
+        return true;
+    }
+
+    /**
+     * Sets the listener told about each change the database rejects and the queue drops.
+     *
+     * @param listener The listener, or null to only count dropped changes
+     */
+    public void setDropListener(DropListener listener) {
+        this.dropListener = listener;
+    }
+
+    /**
+     * Returns the number of queued changes the database rejected and that were dropped since
+     * the queue was opened.
+     *
+     * @return The number of dropped changes
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns the number of changes waiting to be written.
+     *
+     * @return The queue depth
+     */
+    public int getPendingCount() {
+        return capacity - freeSlots.availablePermits();
+    }
+
+    /**
+     * Stops accepting changes, writes everything still queued and closes the journal.
+     * Gives up after a default deadline; see {@link #close(long)}.
+     */
+    @Override
+    public void close() {
+        close(DEFAULT_CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Stops accepting changes, writes what is still queued within the given time and closes the
+     * journal. Changes that could not be written in time, for example because the database is
+     * down, stay in the journal and are replayed when the queue is next opened.
+     *
+     * @param timeoutMillis How long to wait for the queue to drain
+     * @return true if every queued change was written, false if the deadline passed first
+     */
+    public boolean close(long timeoutMillis) {
+        running = false;
+        boolean drained = false;
+        try {
+            writer.join(Math.max(1, timeoutMillis));
+            drained = !writer.isAlive();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!drained) {
+            abandoned = true;
+            writer.interrupt();
+        }
+        journalLock.lock();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            journalLock.unlock();
+        }
+        return drained;
+    }
+
+    private void enqueue(Kind kind, String key, Object snapshot, String... fields) {
+        checkOpen();
+        acquireSlot();
+        journalLock.lock();
+        try {
+            append(kind, key, snapshot, fields);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (!running) {
+            throw new IllegalStateException("Write-behind queue is closed");
+        }
+    }
+
+    /**
+     * Journals and queues one change. The caller holds the journal lock and a free slot,
+     * which is given back if the change cannot be journaled.
+     */
+    private void append(Kind kind, String key, Object snapshot, String... fields) {
+        long sequence = lastSequence + 1;
+        byte[] record = encode(sequence, kind, fields).getBytes(StandardCharsets.UTF_8);
+        try {
+            appendToJournal(record);
+        } catch (IOException e) {
+            freeSlots.release();
+            throw new UncheckedIOException("Could not append to write-behind journal " + journalFile, e);
+        }
+        lastSequence = sequence;
+        pendingBytes += record.length;
+        queue.add(new PendingWrite(sequence, kind, key, snapshot, record));
+    }
+
+    private void acquireSlot() {
+        if (backpressure == Backpressure.FAIL_FAST) {
+            if (!freeSlots.tryAcquire()) {
+                throw new IllegalStateException("Write-behind queue is full (" + capacity + " pending)");
+            }
+            return;
+        }
+        try {
+            if (!freeSlots.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Timed out after " + offerTimeoutMillis
+                        + " ms waiting for room in the write-behind queue");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the write-behind queue", e);
+        }
+    }
+
+    private void appendToJournal(byte[] record) throws IOException {
+        writeFully(journal, record);
+        if (syncOnWrite) {
+            journal.force(false);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private long currentSequence() {
+        journalLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private boolean awaitPersisted(long sequence, long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(Math.min(timeoutMillis, Long.MAX_VALUE / 1_000_000));
+        progressLock.lock();
+        try {
+            while (persistedSequence < sequence) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = progressed.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    private void drain() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while ((running || !queue.isEmpty()) && !abandoned) {
+            try {
+                PendingWrite first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                long writtenBytes = 0;
+                for (PendingWrite write : batch) {
+                    writtenBytes += write.record.length;
+                }
+                freeSlots.release(batch.size());
+                markPersisted(batch.get(batch.size() - 1).sequence);
+                batch.clear();
+                compactJournal(writtenBytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes one batch, parents before children so purchases and supply links never precede
+     * their drug, customer or supplier. Of several changes to the same link, only the last is written.
+     * Repeated saves of the same drug, supplier or customer collapse to the latest snapshot, and
+     * a drug snapshot absorbs the stock decrements queued before it, since its stock already includes them;
+     * decrements queued after it are written after it.
+     * The whole batch and its checkpoint are committed in one transaction. If any row fails because
+     * the database is unreachable, the transaction is rolled back and the batch retried until it is
+     * written or the queue is abandoned on close. Rows rejected by the database itself are dropped
+     * and counted against the changes they stand for.
+     */
+    private void write(List<PendingWrite> batch) throws InterruptedException {
+        Map<String, Row<Supplier>> suppliers = new LinkedHashMap<>();
+        Map<String, Row<Customer>> customers = new LinkedHashMap<>();
+        Map<String, Row<Drug>> drugs = new LinkedHashMap<>();
+        Map<String, Row<Map.Entry<String, Integer>>> decrements = new LinkedHashMap<>();
+        List<Row<Purchase>> purchases = new ArrayList<>();
+        Map<SupplyLink, Row<SupplyLink>> links = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            switch (write.kind) {
+                case SUPPLIER -> collapse(suppliers, write.key, write);
+                case CUSTOMER -> collapse(customers, write.key, write);
+                case DRUG -> {
+                    Row<Drug> row = collapse(drugs, write.key, write);
+                    Row<Map.Entry<String, Integer>> absorbed = decrements.remove(write.key);
+                    if (absorbed != null) {
+                        row.sequences.addAll(absorbed.sequences);
+                    }
+                }
+                case STOCK -> {
+                    Row<Map.Entry<String, Integer>> row = decrements.get(write.key);
+                    int quantity = (Integer) write.snapshot + (row == null ? 0 : row.value.getValue());
+                    if (row == null) {
+                        row = new Row<>();
+                        decrements.put(write.key, row);
+                    }
+                    row.value = Map.entry(write.key, quantity);
+                    row.sequences.add(write.sequence);
+                }
+                case PURCHASE -> purchases.add(new Row<Purchase>().of(write));
+                case LINK, UNLINK -> {
+                    Row<SupplyLink> previous = links.remove((SupplyLink) write.snapshot);
+                    Row<SupplyLink> row = new Row<SupplyLink>().of(write);
+                    if (previous != null) {
+                        row.sequences.addAll(0, previous.sequences);
+                    }
+                    links.put((SupplyLink) write.snapshot, row);
+                }
+            }
+        }
+        List<Row<SupplyLink>> linked = new ArrayList<>();
+        List<Row<SupplyLink>> unlinked = new ArrayList<>();
+        for (Row<SupplyLink> link : links.values()) {
+            (link.kind == Kind.LINK ? linked : unlinked).add(link);
+        }
+        long checkpoint = batch.get(batch.size() - 1).sequence;
+        List<Rejected> rejected = new ArrayList<>();
+        boolean commitAttempted = false;
+        boolean committed = false;
+        while (!committed) {
+            try {
+                // A commit that failed with the connection may still have gone through
+                committed = commitAttempted && DatabaseManager.loadCheckpoint(queueID) >= checkpoint;
+                if (!committed) {
+                    rejected.clear();
+                    commitAttempted = false;
+                    try (DatabaseManager.Transaction tx = DatabaseManager.beginTransaction()) {
+                        if (apply(suppliers.values(), rows -> tx.saveSuppliers(rows, batchSize), rejected)
+                                && apply(customers.values(), rows -> tx.saveCustomers(rows, batchSize), rejected)
+                                && apply(drugs.values(), rows -> tx.saveDrugs(rows, batchSize), rejected)
+                                && apply(decrements.values(), rows -> tx.decrementStocks(rows, batchSize), rejected)
+                                && apply(purchases, rows -> tx.savePurchases(rows, batchSize), rejected)
+                                && apply(unlinked, rows -> tx.deleteSupplyLinks(rows, batchSize), rejected)
+                                && apply(linked, rows -> tx.saveSupplyLinks(rows, batchSize), rejected)) {
+                            tx.saveCheckpoint(queueID, checkpoint);
+                            commitAttempted = true;
+                            tx.commit();
+                            committed = true;
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                // Rolled back, or the outcome of the commit is checked on the next attempt
+            }
+            if (!committed) {
+                Thread.sleep(RETRY_BACKOFF_MILLIS);
+            }
+        }
+        for (Rejected rejection : rejected) {
+            drop(rejection.row, rejection.failure);
+        }
+    }
+
+    private static <T> Row<T> collapse(Map<String, Row<T>> rows, String key, PendingWrite write) {
+        return rows.computeIfAbsent(key, k -> new Row<>()).of(write);
+    }
+
+    /**
+     * Writes one group of rows inside the batch's transaction, collecting the rows the database
+     * rejected. Returns false if a row failed because the database was unreachable.
+     */
+    private static <T> boolean apply(Collection<Row<T>> rows, BatchWriter<T> writer, List<Rejected> rejected) {
+        if (rows.isEmpty()) {
+            return true;
+        }
+        List<Row<T>> pending = new ArrayList<>(rows);
+        List<T> values = new ArrayList<>(pending.size());
+        for (Row<T> row : pending) {
+            values.add(row.value);
+        }
+        for (BatchResult.Failure failure : writer.write(values).getFailures()) {
+            if (isTransient(failure.getCause())) {
+                return false;
+            }
+            rejected.add(new Rejected(pending.get(failure.getPosition()), failure));
+        }
+        return true;
+    }
+
+    private void drop(Row<?> row, BatchResult.Failure failure) {
+        droppedSequences.addAll(row.sequences);
+        droppedCount += row.sequences.size();
+        DropListener listener = dropListener;
+        if (listener != null) {
+            try {
+                listener.dropped(failure);
+            } catch (RuntimeException e) {
+                // The drop is already counted and fails the next flush; a failing listener must
+                // not stop the writer
+            }
+        }
+    }
+
+    private static boolean isTransient(SQLException e) {
+        return e instanceof SQLTransientException
+                || e instanceof SQLRecoverableException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+
+    private void markPersisted(long sequence) {
+        progressLock.lock();
+        try {
+            persistedSequence = sequence;
+            progressed.signalAll();
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    /**
+     * Keeps the journal bounded once a batch is written. The journal is emptied when the writer
+     * has caught up; otherwise, once it is both large and mostly written changes, it is replaced
+     * by a copy holding only the changes still queued.
+     */
+    private void compactJournal(long writtenBytes) {
+        journalLock.lock();
+        try {
+            pendingBytes -= writtenBytes;
+            if (!journal.isOpen()) {
+                return;
+            }
+            if (queue.isEmpty() && persistedSequence == lastSequence) {
+                journal.truncate(0);
+                if (syncOnWrite) {
+                    journal.force(false);
+                }
+                return;
+            }
+            long size = journal.size();
+            if (size > COMPACTION_MIN_BYTES && size > 2 * pendingBytes) {
+                rewriteJournal();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void rewriteJournal() throws IOException {
+        Path compacted = journalFile.resolveSibling(journalFile.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (PendingWrite write : queue) {
+                writeFully(out, write.record);
+            }
+            out.force(false);
+        }
+        Files.move(compacted, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal.close();
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads the ID under which the queue keeps its database checkpoint, creating it next to the
+     * journal on first use.
+     */
+    private static String readQueueID(Path journalFile) throws IOException {
+        Path idFile = journalFile.resolveSibling(journalFile.getFileName() + ".id");
+        if (Files.exists(idFile)) {
+            String id = Files.readString(idFile, StandardCharsets.UTF_8).trim();
+            if (!id.isEmpty()) {
+                return id;
+            }
+        }
+        String id = UUID.randomUUID().toString();
+        Files.writeString(idFile, id, StandardCharsets.UTF_8);
+        return id;
+    }
+
+    private static List<PendingWrite> readJournal(Path journalFile) throws IOException {
+        List<PendingWrite> writes = new ArrayList<>();
+        if (!Files.exists(journalFile)) {
+            return writes;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                PendingWrite write = decode(line);
+                if (write != null) {
+                    writes.add(write);
+                }
+            }
+        }
+        return writes;
+    }
+
+    private static String encode(long sequence, Kind kind, String... fields) {
+        StringBuilder line = new StringBuilder().append(sequence).append('\t').append(kind);
+        for (String field : fields) {
+            line.append('\t');
+            if (field == null) {
+                line.append("\\0");
+                continue;
+            }
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                switch (c) {
+                    case '\\' -> line.append("\\\\");
+                    case '\t' -> line.append("\\t");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    default -> line.append(c);
+                }
+            }
+        }
+        return line.append('\n').toString();
+    }
+
+    /**
+     * Parses one journal line, or returns null for a line that was only partly written.
+     */
+    private static PendingWrite decode(String line) {
+        String[] parts = line.split("\t", -1);
+        try {
+            long sequence = Long.parseLong(parts[0]);
+            Kind kind = Kind.valueOf(parts[1]);
+            String[] f = new String[parts.length - 2];
+            for (int i = 0; i < f.length; i++) {
+                f[i] = unescape(parts[i + 2]);
+            }
+            byte[] record = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            return switch (kind) {
+                case DRUG -> new PendingWrite(sequence, kind, f[0],
+                        new Drug(f[0], f[1], Integer.parseInt(f[2]), Double.parseDouble(f[3])), record);
+                case SUPPLIER -> new PendingWrite(sequence, kind, f[0], new Supplier(f[0], f[1], f[2]), record);
+                case CUSTOMER -> new PendingWrite(sequence, kind, f[0], new Customer(f[0], f[1], f[2]), record);
+                case PURCHASE -> new PendingWrite(sequence, kind, f[0], purchaseSnapshot(f[0], f[1], f[2],
+                        Integer.parseInt(f[3]), Long.parseLong(f[4]), Double.parseDouble(f[5])), record);
+                case STOCK -> new PendingWrite(sequence, kind, f[0], Integer.parseInt(f[1]), record);
+                case LINK, UNLINK -> {
+                    SupplyLink link = new SupplyLink(f[0], f[1]);
+                    yield new PendingWrite(sequence, kind, link.toString(), link, record);
+                }
+            };
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String unescape(String field) {
+        if (field.equals("\\0")) {
+            return null;
+        }
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder value = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                char next = field.charAt(++i);
+                value.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    private static Purchase purchaseSnapshot(String purchaseID, String drugID, String customerID,
+                                             int quantity, long purchaseTime, double unitPrice) {
+        return new Purchase(purchaseID, new Drug(drugID, "", 0, unitPrice), new Customer(customerID, "", ""),
+                quantity, new Date(purchaseTime), unitPrice);
+    }
+
+    /**
+     * Writes a group of rows of one kind to the database.
+     */
+    @FunctionalInterface
+    private interface BatchWriter<T> {
+        BatchResult write(Collection<T> rows);
+    }
+
+    private static class PendingWrite {
+        private final long sequence;
+        private final Kind kind;
+        private final String key;
+        private final Object snapshot;
+        private final byte[] record;
+
+        private PendingWrite(long sequence, Kind kind, String key, Object snapshot, byte[] record) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.key = key;
+            this.snapshot = snapshot;
+            this.record = record;
+        }
+    }
+
+    /**
+     * A row the database rejected, and why.
+     */
+    private static class Rejected {
+        private final Row<?> row;
+        private final BatchResult.Failure failure;
+
+        private Rejected(Row<?> row, BatchResult.Failure failure) {
+            this.row = row;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * One row to be written and the sequence numbers of the queued changes it stands for.
+     */
+    private static class Row<T> {
+        private final List<Long> sequences = new ArrayList<>();
+        private T value;
+        private Kind kind;
+
+        @SuppressWarnings("unchecked")
+        private Row<T> of(PendingWrite write) {
+            value = (T) write.snapshot;
+            kind = write.kind;
+            sequences.add(write.sequence);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.drugManagement.index;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Filter kernels over primitive columns. When the JDK's Vector API is present at runtime (the JVM
+ * was started with {@code --add-modules jdk.incubator.vector}) each kernel compares a full vector
+ * of lanes per step; otherwise, or for the tail that does not fill a vector, it runs a plain
+ * counted loop that the JIT can still unroll.
+ * The Vector API is reached through method handles looked up once at class initialization, so
+ * the tree compiles without the incubator module. The handles are held in static final fields,
+ * which the JIT treats as constants and inlines.
+ */
+final class ColumnScans {
+    private static final int INT_LANES;
+    private static final MethodHandle INT_FROM_ARRAY;
+    private static final MethodHandle INT_LESS_THAN;
+    private static final int DOUBLE_LANES;
+    private static final MethodHandle DOUBLE_FROM_ARRAY;
+    private static final MethodHandle DOUBLE_AT_LEAST;
+    private static final MethodHandle DOUBLE_AT_MOST;
+    private static final MethodHandle MASK_AND;
+    private static final MethodHandle MASK_TRUE_COUNT;
+
+    static {
+        int intLanes = 0;
+        int doubleLanes = 0;
+        MethodHandle intFromArray = null;
+        MethodHandle intLessThan = null;
+        MethodHandle doubleFromArray = null;
+        MethodHandle doubleAtLeast = null;
+        MethodHandle doubleAtMost = null;
+        MethodHandle maskAnd = null;
+        MethodHandle maskTrueCount = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> species = Class.forName("jdk.incubator.vector.VectorSpecies");
+            Class<?> mask = Class.forName("jdk.incubator.vector.VectorMask");
+            Class<?> operators = Class.forName("jdk.incubator.vector.VectorOperators");
+            Class<?> comparison = Class.forName("jdk.incubator.vector.VectorOperators$Comparison");
+            Class<?> intVector = Class.forName("jdk.incubator.vector.IntVector");
+            Class<?> doubleVector = Class.forName("jdk.incubator.vector.DoubleVector");
+            Object lessThan = operators.getField("LT").get(null);
+            Object atLeast = operators.getField("GE").get(null);
+            Object atMost = operators.getField("LE").get(null);
+            Object intSpecies = intVector.getField("SPECIES_PREFERRED").get(null);
+            Object doubleSpecies = doubleVector.getField("SPECIES_PREFERRED").get(null);
+            MethodHandle length = lookup.findVirtual(species, "length", MethodType.methodType(int.class));
+
+            intFromArray = MethodHandles.insertArguments(lookup.findStatic(intVector, "fromArray",
+                    MethodType.methodType(intVector, species, int[].class, int.class)), 0, intSpecies)
+                    .asType(MethodType.methodType(Object.class, int[].class, int.class));
+            intLessThan = MethodHandles.insertArguments(lookup.findVirtual(intVector, "compare",
+                    MethodType.methodType(mask, comparison, int.class)), 1, lessThan)
+                    .asType(MethodType.methodType(Object.class, Object.class, int.class));
+            doubleFromArray = MethodHandles.insertArguments(lookup.findStatic(doubleVector, "fromArray",
+                    MethodType.methodType(doubleVector, species, double[].class, int.class)), 0, doubleSpecies)
+                    .asType(MethodType.methodType(Object.class, double[].class, int.class));
+            MethodHandle doubleCompare = lookup.findVirtual(doubleVector, "compare",
+                    MethodType.methodType(mask, comparison, double.class));
+            doubleAtLeast = MethodHandles.insertArguments(doubleCompare, 1, atLeast)
+                    .asType(MethodType.methodType(Object.class, Object.class, double.class));
+            doubleAtMost = MethodHandles.insertArguments(doubleCompare, 1, atMost)
+                    .asType(MethodType.methodType(Object.class, Object.class, double.class));
+            maskAnd = lookup.findVirtual(mask, "and", MethodType.methodType(mask, mask))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            maskTrueCount = lookup.findVirtual(mask, "trueCount", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            intLanes = (int) length.invoke(intSpecies);
+            doubleLanes = (int) length.invoke(doubleSpecies);
+        } catch (Throwable e) {
+            // The incubator module is not in the boot layer; every kernel runs its scalar loop
+            intLanes = 0;
+            doubleLanes = 0;
+        }
+        INT_LANES = intLanes;
+        DOUBLE_LANES = doubleLanes;
+        INT_FROM_ARRAY = intFromArray;
+        INT_LESS_THAN = intLessThan;
+        DOUBLE_FROM_ARRAY = doubleFromArray;
+        DOUBLE_AT_LEAST = doubleAtLeast;
+        DOUBLE_AT_MOST = doubleAtMost;
+        MASK_AND = maskAnd;
+        MASK_TRUE_COUNT = maskTrueCount;
+    }
+
+    private ColumnScans() {
+    }
+
+    /**
+     * Tells whether the kernels run on the Vector API.
+     *
+     * @return true if the Vector API was found at runtime, false if only the scalar loops run
+     */
+    static boolean isVectorized() {
+        return INT_LANES > 0 && DOUBLE_LANES > 0;
+    }
+
+    /**
+     * Counts the values in the first {@code n} slots of a column that are below a threshold.
+     */
+    static int countBelow(int[] column, int n, int threshold) {
+        int count = 0;
+        int i = 0;
+        if (INT_LANES > 0) {
+            try {
+                for (int bound = n - n % INT_LANES; i < bound; i += INT_LANES) {
+                    Object values = (Object) INT_FROM_ARRAY.invokeExact(column, i);
+                    count += (int) MASK_TRUE_COUNT.invokeExact((Object) INT_LESS_THAN.invokeExact(values, threshold));
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+        for (; i < n; i++) {
+            count += column[i] < threshold ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Counts the values in the first {@code n} slots of a column that lie within a closed range.
+     */
+    static int countBetween(double[] column, int n, double min, double max) {
+        int count = 0;
+        int i = 0;
+        if (DOUBLE_LANES > 0) {
+            try {
+                for (int bound = n - n % DOUBLE_LANES; i < bound; i += DOUBLE_LANES) {
+                    Object values = (Object) DOUBLE_FROM_ARRAY.invokeExact(column, i);
+                    Object matches = (Object) MASK_AND.invokeExact((Object) DOUBLE_AT_LEAST.invokeExact(values, min),
+                            (Object) DOUBLE_AT_MOST.invokeExact(values, max));
+                    count += (int) MASK_TRUE_COUNT.invokeExact(matches);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+        for (; i < n; i++) {
+            double value = column[i];
+            count += (value >= min & value <= max) ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException("Vector scan failed", e);
+    }
+}
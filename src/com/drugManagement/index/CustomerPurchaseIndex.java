@@ -0,0 +1,165 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Purchase;
+import com.drugManagement.data.SnapshotList;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of purchases by customer ID, with each customer's purchases kept in purchase date order.
+ * Purchases usually arrive in date order, so adding one is an append; late arrivals are
+ * placed with a binary search. A full history is handed out as a snapshot that shares the stored
+ * purchases, and pages of history are read without copying the full history.
+ * The index is thread-safe. Each customer's history is guarded by its own monitor, so purchases
+ * by different customers are indexed in parallel and only one customer's purchases are serialized.
+ */
+public class CustomerPurchaseIndex {
+    private final Map<String, SnapshotList<Purchase>> purchasesByCustomer;
+
+    /**
+     * Constructs an empty CustomerPurchaseIndex.
+     */
+    public CustomerPurchaseIndex() {
+        this.purchasesByCustomer = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a purchase to its customer's history.
+     * Purchases with the same date keep the order in which they were added.
+     *
+     * @param purchase The purchase to be indexed
+     */
+    public void add(Purchase purchase) {
+        SnapshotList<Purchase> history = purchasesByCustomer.computeIfAbsent(
+                purchase.getCustomer().getCustomerID(), id -> new SnapshotList<>());
+        long time = timeOf(purchase);
+        synchronized (history) {
+            if (history.size() == 0 || timeOf(history.get(history.size() - 1)) <= time) {
+                history.add(purchase);
+            } else {
+                history.add(firstAfter(history, time), purchase);
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only snapshot of a customer's purchases, oldest first, in constant time.
+     * The snapshot does not change when purchases are added afterwards.
+     *
+     * @param customerID The ID of the customer
+     * @return The customer's purchases in date order, or an empty list if there are none
+     */
+    public List<Purchase> getHistory(String customerID) {
+        SnapshotList<Purchase> history = purchasesByCustomer.get(customerID);
+        if (history == null) {
+            return List.of();
+        }
+        synchronized (history) {
+            return history.snapshot();
+        }
+    }
+
+    /**
+     * Returns the number of purchases recorded for a customer.
+     *
+     * @param customerID The ID of the customer
+     * @return The number of purchases
+     */
+    public int count(String customerID) {
+        SnapshotList<Purchase> history = purchasesByCustomer.get(customerID);
+        if (history == null) {
+            return 0;
+        }
+        synchronized (history) {
+            return history.size();
+        }
+    }
+
+    /**
+     * Returns a customer's most recent purchases, newest first.
+     *
+     * @param customerID The ID of the customer
+     * @param limit The maximum number of purchases to return
+     * @return Up to {@code limit} purchases, newest first
+     */
+    public List<Purchase> latest(String customerID, int limit) {
+        SnapshotList<Purchase> history = purchasesByCustomer.get(customerID);
+        if (history == null) {
+            return new ArrayList<>();
+        }
+        synchronized (history) {
+            return pageBefore(history, history.size(), limit);
+        }
+    }
+
+    /**
+     * Returns the purchases a customer made strictly before the given cursor, newest first.
+     * Passing the date of the last purchase on a page as the cursor returns the next page.
+     *
+     * @param customerID The ID of the customer
+     * @param cursor The exclusive upper bound on the purchase date
+     * @param limit The maximum number of purchases to return
+     * @return Up to {@code limit} purchases made before the cursor, newest first
+     */
+    public List<Purchase> before(String customerID, Date cursor, int limit) {
+        SnapshotList<Purchase> history = purchasesByCustomer.get(customerID);
+        if (history == null) {
+            return new ArrayList<>();
+        }
+        synchronized (history) {
+            return pageBefore(history, firstAtOrAfter(history, cursor.getTime()), limit);
+        }
+    }
+
+    /**
+     * Removes all purchases from the index.
+     */
+    public void clear() {
+        purchasesByCustomer.clear();
+    }
+
+    private static List<Purchase> pageBefore(SnapshotList<Purchase> history, int end, int limit) {
+        List<Purchase> page = new ArrayList<>(Math.max(0, Math.min(limit, end)));
+        for (int i = end - 1; i >= 0 && page.size() < limit; i--) {
+            page.add(history.get(i));
+        }
+        return page;
+    }
+
+    private static int firstAfter(SnapshotList<Purchase> history, long time) {
+        int low = 0;
+        int high = history.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timeOf(history.get(mid)) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int firstAtOrAfter(SnapshotList<Purchase> history, long time) {
+        int low = 0;
+        int high = history.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timeOf(history.get(mid)) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long timeOf(Purchase purchase) {
+        Date date = purchase.getPurchaseDate();
+        return date == null ? Long.MIN_VALUE : date.getTime();
+    }
+}
@@ -0,0 +1,417 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Drug;
+import com.drugManagement.data.DrugChangeListener;
+import com.drugManagement.data.DrugIndex;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A columnar copy of the inventory held next to the Drug objects: stock and price in primitive
+ * arrays, and names and IDs as int codes into per-column dictionaries. Filters and aggregates
+ * scan these arrays sequentially instead of following references across the heap.
+ * The stock and price filters count their matches with {@link ColumnScans}, which uses the
+ * Vector API when it is available at runtime; the other scans are plain counted loops over
+ * primitive arrays with no calls or early exits, the shape the JIT compiles to SIMD code.
+ * Filters return drugs in row order; the sorted indexes serve callers that need drugs by stock,
+ * price or name order.
+ * Structural changes must be serialized by the caller. Stock and price updates may arrive from any
+ * thread and are written without locking, so a sale never waits on another; a write that raced a
+ * structural change is detected and repaired under the lock. Name and ID changes are re-encoded
+ * under the lock. Scans are lock-free and may observe values that are a moment out of date.
+ */
+public class InventoryColumns implements DrugIndex {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final VarHandle STOCK = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle PRICE = MethodHandles.arrayElementVarHandle(double[].class);
+
+    private Drug[] rows;
+    private int[] stock;
+    private double[] price;
+    private int[] nameCode;
+    private int[] idCode;
+    private volatile int size;
+    // Drug does not override equals, so this map is keyed by identity.
+    private final Map<Drug, Integer> rowByDrug;
+    // Incremented before and after every structural change, so it is odd while one is in progress.
+    private volatile long layout;
+    private final Dictionary names;
+    private final Dictionary ids;
+    private final DrugChangeListener columnTracker;
+
+    /**
+     * Constructs an empty InventoryColumns.
+     */
+    public InventoryColumns() {
+        this.rows = new Drug[INITIAL_CAPACITY];
+        this.stock = new int[INITIAL_CAPACITY];
+        this.price = new double[INITIAL_CAPACITY];
+        this.nameCode = new int[INITIAL_CAPACITY];
+        this.idCode = new int[INITIAL_CAPACITY];
+        this.rowByDrug = new ConcurrentHashMap<>();
+        this.names = new Dictionary();
+        this.ids = new Dictionary();
+        this.columnTracker = new DrugChangeListener() {
+            @Override
+            public void stockChanged(Drug drug, int oldStock) {
+                refresh(drug);
+            }
+
+            @Override
+            public void priceChanged(Drug drug, double oldPrice) {
+                refresh(drug);
+            }
+
+            @Override
+            public void nameChanged(Drug drug, String oldName) {
+                recode(drug);
+            }
+
+            @Override
+            public void drugIDChanged(Drug drug, String oldID) {
+                recode(drug);
+            }
+        };
+    }
+
+    /**
+     * Appends a drug as a new row.
+     *
+     * @param drug The drug to be indexed
+     */
+    @Override
+    public synchronized void add(Drug drug) {
+        if (rowByDrug.containsKey(drug)) {
+            return;
+        }
+        layout++;
+        int row = size;
+        if (row == rows.length) {
+            grow();
+        }
+        rows[row] = drug;
+        stock[row] = drug.getStock();
+        price[row] = drug.getPrice();
+        nameCode[row] = names.encode(drug.getName());
+        idCode[row] = ids.encode(drug.getDrugID());
+        rowByDrug.put(drug, row);
+        size = row + 1;
+        layout++;
+        drug.addChangeListener(columnTracker);
+    }
+
+    /**
+     * Removes a drug's row by moving the last row into its place.
+     *
+     * @param drug The drug to be removed
+     */
+    @Override
+    public synchronized void remove(Drug drug) {
+        Integer row = rowByDrug.get(drug);
+        if (row == null) {
+            return;
+        }
+        drug.removeChangeListener(columnTracker);
+        layout++;
+        rowByDrug.remove(drug);
+        int last = size - 1;
+        if (row != last) {
+            Drug moved = rows[last];
+            rows[row] = moved;
+            stock[row] = stock[last];
+            price[row] = price[last];
+            nameCode[row] = nameCode[last];
+            idCode[row] = idCode[last];
+            rowByDrug.put(moved, row);
+        }
+        rows[last] = null;
+        size = last;
+        layout++;
+    }
+
+    /**
+     * Returns the drugs whose stock is below the given threshold, in row order.
+     *
+     * @param threshold The exclusive upper bound on stock
+     * @return The matching drugs
+     */
+    public List<Drug> stockBelow(int threshold) {
+        int n = size;
+        Drug[] rowsSnapshot = rows;
+        int[] stockColumn = stock;
+        List<Drug> result = new ArrayList<>(ColumnScans.countBelow(stockColumn, n, threshold));
+        for (int i = 0; i < n; i++) {
+            if (stockColumn[i] < threshold) {
+                result.add(rowsSnapshot[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the drugs whose stock is below the given threshold without materializing them.
+     *
+     * @param threshold The exclusive upper bound on stock
+     * @return The number of matching drugs
+     */
+    public int countStockBelow(int threshold) {
+        return ColumnScans.countBelow(stock, size, threshold);
+    }
+
+    /**
+     * Returns the drugs whose price lies within the given range, in row order.
+     *
+     * @param minPrice The minimum price (inclusive)
+     * @param maxPrice The maximum price (inclusive)
+     * @return The matching drugs
+     */
+    public List<Drug> priceBetween(double minPrice, double maxPrice) {
+        int n = size;
+        Drug[] rowsSnapshot = rows;
+        double[] priceColumn = price;
+        List<Drug> result = new ArrayList<>(ColumnScans.countBetween(priceColumn, n, minPrice, maxPrice));
+        for (int i = 0; i < n; i++) {
+            double p = priceColumn[i];
+            if (p >= minPrice && p <= maxPrice) {
+                result.add(rowsSnapshot[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the drugs whose price lies within the given range without materializing them.
+     *
+     * @param minPrice The minimum price (inclusive)
+     * @param maxPrice The maximum price (inclusive)
+     * @return The number of matching drugs
+     */
+    public int countPriceBetween(double minPrice, double maxPrice) {
+        return ColumnScans.countBetween(price, size, minPrice, maxPrice);
+    }
+
+    /**
+     * Returns the drugs with exactly the given name, in row order. The name is looked up in the
+     * dictionary once and the scan compares int codes.
+     *
+     * @param name The name to match
+     * @return The matching drugs
+     */
+    public List<Drug> withName(String name) {
+        int code = names.lookup(name);
+        int n = size;
+        return withCode(rows, nameCode, n, code);
+    }
+
+    /**
+     * Returns the drugs with exactly the given ID, in row order. The ID is looked up in the
+     * dictionary once and the scan compares int codes.
+     *
+     * @param drugID The ID to match
+     * @return The matching drugs
+     */
+    public List<Drug> withID(String drugID) {
+        int code = ids.lookup(drugID);
+        int n = size;
+        return withCode(rows, idCode, n, code);
+    }
+
+    private static List<Drug> withCode(Drug[] rowsSnapshot, int[] codeColumn, int n, int code) {
+        List<Drug> result = new ArrayList<>();
+        if (code < 0) {
+            return result;
+        }
+        for (int i = 0; i < n; i++) {
+            if (codeColumn[i] == code) {
+                result.add(rowsSnapshot[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the total number of units in stock.
+     *
+     * @return The sum of the stock column
+     */
+    public long totalStock() {
+        int n = size;
+        int[] stockColumn = stock;
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            total += stockColumn[i];
+        }
+        return total;
+    }
+
+    /**
+     * Gets the value of the inventory at current prices.
+     *
+     * @return The sum of stock times price over all rows
+     */
+    public double inventoryValue() {
+        int n = size;
+        int[] stockColumn = stock;
+        double[] priceColumn = price;
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += stockColumn[i] * priceColumn[i];
+        }
+        return total;
+    }
+
+    /**
+     * Returns every drug with the stock held in the stock column.
+     *
+     * @return A map from drug to stock level
+     */
+    public Map<Drug, Integer> stockByDrug() {
+        int n = size;
+        Drug[] rowsSnapshot = rows;
+        int[] stockColumn = stock;
+        Map<Drug, Integer> result = new HashMap<>(n * 4 / 3 + 1);
+        for (int i = 0; i < n; i++) {
+            result.put(rowsSnapshot[i], stockColumn[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the ID stored for a row, decoded from the ID dictionary.
+     *
+     * @param row The row number
+     * @return The drugID of that row
+     */
+    public String idAt(int row) {
+        return ids.decode(idCode[row]);
+    }
+
+    /**
+     * Gets the name stored for a row, decoded from the name dictionary.
+     *
+     * @param row The row number
+     * @return The name of that row
+     */
+    public String nameAt(int row) {
+        return names.decode(nameCode[row]);
+    }
+
+    /**
+     * Tells whether the stock and price filters run on the Vector API.
+     *
+     * @return true if the Vector API is in use, false if the scalar loops are
+     */
+    public static boolean isVectorized() {
+        return ColumnScans.isVectorized();
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return The number of indexed drugs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copies a drug's current stock and price into its row without locking. Each value is re-read
+     * after it is written and written again if it moved meanwhile, so racing notifications leave
+     * the row at the drug's latest state. If the rows were moved or reallocated while the write
+     * was under way, the write may have landed in the wrong place; both the slot written and the
+     * drug's current row are then rewritten under the lock.
+     */
+    private void refresh(Drug drug) {
+        long version = layout;
+        Integer row = rowByDrug.get(drug);
+        if (row == null) {
+            return;
+        }
+        int[] stockColumn = stock;
+        double[] priceColumn = price;
+        if (row >= stockColumn.length || row >= priceColumn.length) {
+            repair(drug, -1, stockColumn);
+            return;
+        }
+        write(drug, stockColumn, priceColumn, row);
+        if ((version & 1) != 0 || layout != version) {
+            repair(drug, row, stockColumn);
+        }
+    }
+
+    private synchronized void repair(Drug drug, int writtenRow, int[] writtenColumn) {
+        if (writtenRow >= 0 && writtenColumn == stock && writtenRow < size) {
+            write(rows[writtenRow], stock, price, writtenRow);
+        }
+        Integer row = rowByDrug.get(drug);
+        if (row != null) {
+            write(drug, stock, price, row);
+        }
+    }
+
+    // Names and IDs change rarely and off the checkout path, so they are re-encoded under the lock.
+    private synchronized void recode(Drug drug) {
+        Integer row = rowByDrug.get(drug);
+        if (row != null) {
+            nameCode[row] = names.encode(drug.getName());
+            idCode[row] = ids.encode(drug.getDrugID());
+        }
+    }
+
+    private static void write(Drug drug, int[] stockColumn, double[] priceColumn, int row) {
+        int units;
+        do {
+            units = drug.getStock();
+            STOCK.setVolatile(stockColumn, row, units);
+        } while (drug.getStock() != units);
+        double unitPrice;
+        do {
+            unitPrice = drug.getPrice();
+            PRICE.setVolatile(priceColumn, row, unitPrice);
+        } while (Double.compare(drug.getPrice(), unitPrice) != 0);
+    }
+
+    private void grow() {
+        int capacity = rows.length * 2;
+        rows = Arrays.copyOf(rows, capacity);
+        stock = Arrays.copyOf(stock, capacity);
+        price = Arrays.copyOf(price, capacity);
+        nameCode = Arrays.copyOf(nameCode, capacity);
+        idCode = Arrays.copyOf(idCode, capacity);
+    }
+
+    /**
+     * Maps strings to dense int codes. Codes are never reused, so a code read from a column
+     * always decodes to the string it was written for. Null is stored as an ordinary value.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private synchronized int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        private synchronized int lookup(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        private synchronized String decode(int code) {
+            return values.get(code);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Drug;
+import com.drugManagement.data.DrugChangeListener;
+import com.drugManagement.data.DrugIndex;
+import com.drugManagement.data.LinkedConcurrentMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trigram inverted index over lower-cased drug names, used for case-insensitive
+ * substring search.
+ * A query is answered by intersecting the posting lists of its trigrams, starting with
+ * the shortest, and confirming only the surviving candidates with a substring check.
+ * Queries shorter than three characters fall back to scanning the cached lower-cased names.
+ * Posting lists keep drugs in the order they were indexed, so results come back in catalog order.
+ * Writes must be serialized, but searches are safe while the index is being updated.
+ */
+public class NameIndex implements DrugIndex {
+    private static final int GRAM = 3;
+
+    private final Map<Long, Set<Drug>> postings;
+    private final Map<Drug, String> lowerNames;
+    private final DrugChangeListener nameTracker;
+
+    /**
+     * Constructs an empty NameIndex.
+     */
+    public NameIndex() {
+        this.postings = new ConcurrentHashMap<>();
+        this.lowerNames = new LinkedConcurrentMap<>();
+        this.nameTracker = new DrugChangeListener() {
+            @Override
+            public void nameChanged(Drug drug, String oldName) {
+                if (unlink(drug)) {
+                    link(drug);
+                }
+            }
+        };
+    }
+
+    /**
+     * Adds a drug to the index.
+     *
+     * @param drug The drug to be indexed
+     */
+    @Override
+    public void add(Drug drug) {
+        if (!lowerNames.containsKey(drug)) {
+            link(drug);
+            drug.addChangeListener(nameTracker);
+        }
+    }
+
+    /**
+     * Removes a drug from the index.
+     *
+     * @param drug The drug to be removed
+     */
+    @Override
+    public void remove(Drug drug) {
+        if (unlink(drug)) {
+            drug.removeChangeListener(nameTracker);
+        }
+    }
+
+    /**
+     * Finds the drugs whose name contains the given text, ignoring case.
+     *
+     * @param name The name (or part of the name) to search for
+     * @return A list of Drug objects that match the name
+     */
+    public List<Drug> search(String name) {
+        String query = name.toLowerCase();
+        List<Drug> result = new ArrayList<>();
+        if (query.length() < GRAM) {
+            for (Map.Entry<Drug, String> entry : lowerNames.entrySet()) {
+                if (entry.getValue().contains(query)) {
+                    result.add(entry.getKey());
+                }
+            }
+            return result;
+        }
+
+        List<Set<Drug>> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            Set<Drug> posting = postings.get(gram(query, i));
+            if (posting == null) {
+                return result;
+            }
+            if (lists.stream().noneMatch(seen -> seen == posting)) {
+                lists.add(posting);
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<Drug> smallest = lists.get(0);
+        candidates:
+        for (Drug drug : smallest) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(drug)) {
+                    continue candidates;
+                }
+            }
+            if (lowerNames.get(drug).contains(query)) {
+                result.add(drug);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of drugs in the index.
+     *
+     * @return The number of indexed drugs
+     */
+    public int size() {
+        return lowerNames.size();
+    }
+
+    private void link(Drug drug) {
+        String lower = drug.getName() == null ? "" : drug.getName().toLowerCase();
+        lowerNames.put(drug, lower);
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            postings.computeIfAbsent(gram(lower, i), key -> Collections.newSetFromMap(new LinkedConcurrentMap<>()))
+                    .add(drug);
+        }
+    }
+
+    private boolean unlink(Drug drug) {
+        String lower = lowerNames.remove(drug);
+        if (lower == null) {
+            return false;
+        }
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            Long key = gram(lower, i);
+            Set<Drug> posting = postings.get(key);
+            if (posting != null && posting.remove(drug) && posting.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+        return true;
+    }
+
+    private static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32)
+                | ((long) text.charAt(start + 1) << 16)
+                | text.charAt(start + 2);
+    }
+}
@@ -0,0 +1,150 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Drug;
+import com.drugManagement.data.DrugChangeListener;
+import com.drugManagement.data.DrugIndex;
+import com.drugManagement.data.LinkedConcurrentMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps drugs ordered by price so that price range queries run in O(log n + k)
+ * instead of scanning the whole catalog.
+ * Drugs sharing a price are grouped in one bucket, in the order they were indexed; price changes
+ * move a drug between buckets as they happen. Writes must be serialized, but reads are safe while
+ * the index is being updated.
+ */
+public class PriceIndex implements DrugIndex {
+    private final NavigableMap<Double, Set<Drug>> drugsByPrice;
+    private final DrugChangeListener priceTracker;
+    private volatile int size;
+
+    /**
+     * Constructs an empty PriceIndex.
+     */
+    public PriceIndex() {
+        this.drugsByPrice = new ConcurrentSkipListMap<>();
+        this.priceTracker = new DrugChangeListener() {
+            @Override
+            public void priceChanged(Drug drug, double oldPrice) {
+                if (unlink(drug, oldPrice)) {
+                    link(drug);
+                }
+            }
+        };
+    }
+
+    /**
+     * Adds a drug to the index.
+     *
+     * @param drug The drug to be indexed
+     */
+    @Override
+    public void add(Drug drug) {
+        if (link(drug)) {
+            drug.addChangeListener(priceTracker);
+        }
+    }
+
+    /**
+     * Removes a drug from the index.
+     *
+     * @param drug The drug to be removed
+     */
+    @Override
+    public void remove(Drug drug) {
+        if (unlink(drug, drug.getPrice())) {
+            drug.removeChangeListener(priceTracker);
+        }
+    }
+
+    /**
+     * Returns the drugs whose price lies within the given range, cheapest first.
+     *
+     * @param minPrice The minimum price (inclusive)
+     * @param maxPrice The maximum price (inclusive)
+     * @return A list of Drug objects within the price range
+     */
+    public List<Drug> range(double minPrice, double maxPrice) {
+        return range(minPrice, maxPrice, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns up to {@code limit} drugs whose price lies within the given range.
+     *
+     * @param minPrice The minimum price (inclusive)
+     * @param maxPrice The maximum price (inclusive)
+     * @param descending true to return the most expensive drugs first
+     * @param limit The maximum number of drugs to return
+     * @return A list of Drug objects within the price range, in price order
+     */
+    public List<Drug> range(double minPrice, double maxPrice, boolean descending, int limit) {
+        List<Drug> result = new ArrayList<>();
+        if (minPrice > maxPrice || limit <= 0) {
+            return result;
+        }
+        NavigableMap<Double, Set<Drug>> band = drugsByPrice.subMap(minPrice, true, maxPrice, true);
+        if (descending) {
+            band = band.descendingMap();
+        }
+        for (Set<Drug> bucket : band.values()) {
+            for (Drug drug : bucket) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(drug);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all indexed drugs in price order.
+     *
+     * @param descending true to return the most expensive drugs first
+     * @return The drugs in price order
+     */
+    public List<Drug> toList(boolean descending) {
+        List<Drug> result = new ArrayList<>(size);
+        for (Set<Drug> bucket : (descending ? drugsByPrice.descendingMap() : drugsByPrice).values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of drugs in the index.
+     *
+     * @return The number of indexed drugs
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean link(Drug drug) {
+        boolean added = drugsByPrice
+                .computeIfAbsent(drug.getPrice(), price -> Collections.newSetFromMap(new LinkedConcurrentMap<>()))
+                .add(drug);
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    private boolean unlink(Drug drug, double price) {
+        Set<Drug> bucket = drugsByPrice.get(price);
+        if (bucket == null || !bucket.remove(drug)) {
+            return false;
+        }
+        if (bucket.isEmpty()) {
+            drugsByPrice.remove(price);
+        }
+        size--;
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Purchase;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Running revenue totals for the whole store, per drug and per customer.
+ * Totals are captured from each purchase's frozen unit price when it is recorded and are
+ * kept in striped {@link DoubleAdder}s, so many checkout threads can record sales without
+ * contending, and any total can be read without scanning purchases.
+ * Drugs and customers are keyed by their ID at the time of purchase; a drug's totals follow it
+ * when its ID is changed through {@link #rekeyDrug(String, String)}.
+ */
+public class RevenueAggregator {
+    private final DoubleAdder totalRevenue;
+    private final Map<String, DoubleAdder> revenueByDrug;
+    private final Map<String, DoubleAdder> revenueByCustomer;
+
+    /**
+     * Constructs a RevenueAggregator with all totals at zero.
+     */
+    public RevenueAggregator() {
+        this.totalRevenue = new DoubleAdder();
+        this.revenueByDrug = new ConcurrentHashMap<>();
+        this.revenueByCustomer = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds the cost of a purchase to the store, drug and customer totals.
+     *
+     * @param purchase The purchase to be counted
+     */
+    public void record(Purchase purchase) {
+        double cost = purchase.getTotalCost();
+        totalRevenue.add(cost);
+        revenueByDrug.computeIfAbsent(purchase.getDrug().getDrugID(), id -> new DoubleAdder()).add(cost);
+        revenueByCustomer.computeIfAbsent(purchase.getCustomer().getCustomerID(), id -> new DoubleAdder()).add(cost);
+    }
+
+    /**
+     * Returns the revenue of the whole store.
+     *
+     * @return The total revenue
+     */
+    public double getTotalRevenue() {
+        return totalRevenue.sum();
+    }
+
+    /**
+     * Returns the revenue earned from one drug.
+     *
+     * @param drugID The ID of the drug
+     * @return The revenue from the drug, or 0 if it was never sold
+     */
+    public double getRevenueForDrug(String drugID) {
+        DoubleAdder revenue = revenueByDrug.get(drugID);
+        return revenue == null ? 0 : revenue.sum();
+    }
+
+    /**
+     * Returns the amount spent by one customer.
+     *
+     * @param customerID The ID of the customer
+     * @return The revenue from the customer, or 0 if they never bought anything
+     */
+    public double getRevenueForCustomer(String customerID) {
+        DoubleAdder revenue = revenueByCustomer.get(customerID);
+        return revenue == null ? 0 : revenue.sum();
+    }
+
+    /**
+     * Moves a drug's revenue to a new ID, adding it to any revenue already under that ID.
+     * A sale that read the drug's ID before it was changed and is recorded while the move is
+     * under way may be left under the old ID.
+     *
+     * @param oldID The ID the revenue is kept under
+     * @param newID The ID the revenue is moved to
+     */
+    public void rekeyDrug(String oldID, String newID) {
+        DoubleAdder moved = revenueByDrug.remove(oldID);
+        if (moved != null) {
+            revenueByDrug.computeIfAbsent(newID, id -> new DoubleAdder()).add(moved.sum());
+        }
+    }
+
+    /**
+     * Resets all totals to zero.
+     */
+    public void clear() {
+        totalRevenue.reset();
+        revenueByDrug.clear();
+        revenueByCustomer.clear();
+    }
+}
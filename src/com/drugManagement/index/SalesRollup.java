@@ -0,0 +1,440 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Purchase;
+import com.drugManagement.data.Supplier;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Pre-aggregated revenue and units sold, bucketed by day, week and month and broken down by drug,
+ * supplier and customer. Each key of each breakdown keeps primitive counters for the buckets in
+ * which it had sales, sorted by bucket, so a period total costs a binary search and one pass over
+ * the buckets in the period instead of a scan over purchases.
+ * Buckets are calendar days, ISO weeks starting on Monday, and calendar months in the rollup's
+ * time zone. The default is the JVM's default zone, the zone in which purchase dates are written
+ * to and read back from the database's DATE column, so a sale lands in the same bucket whether it
+ * is recorded live or reloaded at startup.
+ * Keys are the drug, supplier and customer IDs at the time of the purchase unless moved with
+ * {@link #rekey(Dimension, String, String)}; a drug with several suppliers counts its full sales
+ * towards each of them.
+ * The rollup is safe for concurrent recording and querying.
+ */
+public class SalesRollup {
+
+    /**
+     * The time bucket sizes the rollup is kept at.
+     */
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    /**
+     * The breakdowns the rollup is kept by.
+     */
+    public enum Dimension { DRUG, SUPPLIER, CUSTOMER }
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int DEFAULT_CHUNK_SIZE = 65_536;
+
+    private final ZoneId zone;
+    private final List<Map<String, Series>> cells;
+
+    /**
+     * Constructs an empty SalesRollup that buckets in the JVM's default time zone.
+     */
+    public SalesRollup() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructs an empty SalesRollup.
+     *
+     * @param zone The time zone whose calendar days, weeks and months are the buckets
+     */
+    public SalesRollup(ZoneId zone) {
+        this.zone = zone;
+        int cellCount = Granularity.values().length * Dimension.values().length;
+        this.cells = new ArrayList<>(cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            cells.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Adds a purchase to every bucket and breakdown it falls in.
+     *
+     * @param purchase The purchase to be counted
+     */
+    public void record(Purchase purchase) {
+        if (purchase.getPurchaseDate() == null) {
+            return;
+        }
+        long time = purchase.getPurchaseDate().getTime();
+        double amount = purchase.getTotalCost();
+        int quantity = purchase.getQuantity();
+        for (Granularity granularity : Granularity.values()) {
+            long bucket = bucketOf(granularity, time, zone);
+            add(granularity, Dimension.DRUG, purchase.getDrug().getDrugID(), bucket, amount, quantity);
+            add(granularity, Dimension.CUSTOMER, purchase.getCustomer().getCustomerID(), bucket, amount, quantity);
+            for (Supplier supplier : purchase.getDrug().getSupplier()) {
+                add(granularity, Dimension.SUPPLIER, supplier.getSupplierID(), bucket, amount, quantity);
+            }
+        }
+    }
+
+    /**
+     * Adds every counter of another rollup to this one.
+     *
+     * @param other The rollup to be merged in, which must bucket in the same time zone
+     */
+    public void merge(SalesRollup other) {
+        if (!zone.equals(other.zone)) {
+            throw new IllegalArgumentException("Cannot merge a rollup in " + other.zone + " into one in " + zone);
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            Map<String, Series> target = cells.get(i);
+            for (Map.Entry<String, Series> entry : other.cells.get(i).entrySet()) {
+                target.computeIfAbsent(entry.getKey(), key -> new Series()).addAll(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the revenue of one key over the buckets that contain the given period.
+     *
+     * @param dimension The breakdown the key belongs to
+     * @param key The drug, supplier or customer ID
+     * @param granularity The bucket size to sum over
+     * @param fromMillis The start of the period in epoch millis
+     * @param toMillis The end of the period in epoch millis
+     * @return The revenue in the period, or 0 if there is none
+     */
+    public double getRevenue(Dimension dimension, String key, Granularity granularity,
+                             long fromMillis, long toMillis) {
+        Series series = cell(granularity, dimension).get(key);
+        return series == null ? 0
+                : series.sumRevenue(bucketOf(granularity, fromMillis, zone), bucketOf(granularity, toMillis, zone));
+    }
+
+    /**
+     * Returns the units sold for one key over the buckets that contain the given period.
+     *
+     * @param dimension The breakdown the key belongs to
+     * @param key The drug, supplier or customer ID
+     * @param granularity The bucket size to sum over
+     * @param fromMillis The start of the period in epoch millis
+     * @param toMillis The end of the period in epoch millis
+     * @return The units sold in the period, or 0 if there are none
+     */
+    public long getUnits(Dimension dimension, String key, Granularity granularity,
+                         long fromMillis, long toMillis) {
+        Series series = cell(granularity, dimension).get(key);
+        return series == null ? 0
+                : series.sumUnits(bucketOf(granularity, fromMillis, zone), bucketOf(granularity, toMillis, zone));
+    }
+
+    /**
+     * Returns the revenue of every key of a breakdown over the buckets that contain the given period,
+     * for example revenue per supplier over the last 90 days.
+     *
+     * @param dimension The breakdown to report
+     * @param granularity The bucket size to sum over
+     * @param fromMillis The start of the period in epoch millis
+     * @param toMillis The end of the period in epoch millis
+     * @return The revenue per key, leaving out keys with no sales in the period
+     */
+    public Map<String, Double> getRevenueByKey(Dimension dimension, Granularity granularity,
+                                               long fromMillis, long toMillis) {
+        long from = bucketOf(granularity, fromMillis, zone);
+        long to = bucketOf(granularity, toMillis, zone);
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Series> entry : cell(granularity, dimension).entrySet()) {
+            double revenue = entry.getValue().sumRevenue(from, to);
+            if (revenue != 0) {
+                result.put(entry.getKey(), revenue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the units sold for every key of a breakdown over the buckets that contain the given period.
+     *
+     * @param dimension The breakdown to report
+     * @param granularity The bucket size to sum over
+     * @param fromMillis The start of the period in epoch millis
+     * @param toMillis The end of the period in epoch millis
+     * @return The units sold per key, leaving out keys with no sales in the period
+     */
+    public Map<String, Long> getUnitsByKey(Dimension dimension, Granularity granularity,
+                                           long fromMillis, long toMillis) {
+        long from = bucketOf(granularity, fromMillis, zone);
+        long to = bucketOf(granularity, toMillis, zone);
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, Series> entry : cell(granularity, dimension).entrySet()) {
+            long units = entry.getValue().sumUnits(from, to);
+            if (units != 0) {
+                result.put(entry.getKey(), units);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Moves the counters of one key to a new key at every granularity, adding them to any
+     * counters already under the new key. A sale recorded under the old key while the move is
+     * under way may be left there.
+     *
+     * @param dimension The breakdown the key belongs to
+     * @param oldKey The drug, supplier or customer ID the counters are kept under
+     * @param newKey The ID the counters are moved to
+     */
+    public void rekey(Dimension dimension, String oldKey, String newKey) {
+        for (Granularity granularity : Granularity.values()) {
+            Map<String, Series> cell = cell(granularity, dimension);
+            Series moved = cell.remove(oldKey);
+            if (moved != null) {
+                cell.computeIfAbsent(newKey, key -> new Series()).addAll(moved);
+            }
+        }
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void clear() {
+        for (Map<String, Series> cell : cells) {
+            cell.clear();
+        }
+    }
+
+    /**
+     * Returns the number of the bucket that contains the given time. Bucket numbers are
+     * consecutive, so a period maps to a range of buckets.
+     *
+     * @param granularity The bucket size
+     * @param epochMillis The time in epoch millis
+     * @param zone The time zone whose calendar the buckets follow
+     * @return The bucket number
+     */
+    public static long bucketOf(Granularity granularity, long epochMillis, ZoneId zone) {
+        long offsetMillis = zone.getRules().getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+        long day = Math.floorDiv(epochMillis + offsetMillis, MILLIS_PER_DAY);
+        return switch (granularity) {
+            case DAY -> day;
+            // 1970-01-01 was a Thursday; shifting by three days starts each week on Monday
+            case WEEK -> Math.floorDiv(day + 3, 7);
+            case MONTH -> monthOf(day);
+        };
+    }
+
+    /**
+     * Converts a day count since 1970-01-01 to a month count since year 0, using integer
+     * civil-calendar arithmetic so that no date objects are created.
+     */
+    private static long monthOf(long epochDay) {
+        long shifted = epochDay + 719_468;
+        long era = Math.floorDiv(shifted, 146_097);
+        long dayOfEra = shifted - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long marchMonth = (5 * dayOfYear + 2) / 153;
+        long month = marchMonth < 10 ? marchMonth + 2 : marchMonth - 10;
+        long year = yearOfEra + era * 400 + (month < 2 ? 1 : 0);
+        return year * 12 + month;
+    }
+
+    private void add(Granularity granularity, Dimension dimension, String key, long bucket,
+                     double amount, long quantity) {
+        cell(granularity, dimension).computeIfAbsent(key, k -> new Series()).add(bucket, amount, quantity);
+    }
+
+    private Map<String, Series> cell(Granularity granularity, Dimension dimension) {
+        return cells.get(granularity.ordinal() * Dimension.values().length + dimension.ordinal());
+    }
+
+    /**
+     * Builds a rollup from a stream of purchases on the common fork-join pool. Purchases are
+     * gathered into chunks and each chunk is rolled up on its own. Partial rollups are merged into
+     * the result as the stream goes, so only a few are held at once. Purchases must be handed in
+     * from a single thread.
+     */
+    public static class ParallelBuilder implements Consumer<Purchase> {
+        private final ZoneId zone;
+        private final int chunkSize;
+        private final int maxPending;
+        private final Deque<ForkJoinTask<SalesRollup>> parts;
+        private final SalesRollup result;
+        private List<Purchase> chunk;
+
+        /**
+         * Constructs a ParallelBuilder with the default chunk size that buckets in the JVM's
+         * default time zone.
+         */
+        public ParallelBuilder() {
+            this(ZoneId.systemDefault(), DEFAULT_CHUNK_SIZE);
+        }
+
+        /**
+         * Constructs a ParallelBuilder.
+         *
+         * @param zone The time zone whose calendar the buckets follow
+         * @param chunkSize The number of purchases rolled up per task
+         */
+        public ParallelBuilder(ZoneId zone, int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("Chunk size must be positive");
+            }
+            this.zone = zone;
+            this.chunkSize = chunkSize;
+            this.maxPending = ForkJoinPool.getCommonPoolParallelism() + 1;
+            this.parts = new ArrayDeque<>();
+            this.result = new SalesRollup(zone);
+            this.chunk = new ArrayList<>(chunkSize);
+        }
+
+        /**
+         * Adds a purchase to the rollup being built.
+         *
+         * @param purchase The purchase to be counted
+         */
+        @Override
+        public void accept(Purchase purchase) {
+            chunk.add(purchase);
+            if (chunk.size() == chunkSize) {
+                submit();
+            }
+        }
+
+        /**
+         * Waits for every chunk to be rolled up and merges the results.
+         *
+         * @return The rollup of every purchase handed in
+         */
+        public SalesRollup finish() {
+            if (!chunk.isEmpty()) {
+                submit();
+            }
+            while (!parts.isEmpty()) {
+                result.merge(parts.removeFirst().join());
+            }
+            return result;
+        }
+
+        private void submit() {
+            List<Purchase> purchases = chunk;
+            chunk = new ArrayList<>(chunkSize);
+            parts.add(ForkJoinPool.commonPool().submit(() -> {
+                SalesRollup part = new SalesRollup(zone);
+                for (Purchase purchase : purchases) {
+                    part.record(purchase);
+                }
+                return part;
+            }));
+            while (parts.size() > maxPending) {
+                result.merge(parts.removeFirst().join());
+            }
+        }
+    }
+
+    /**
+     * Counters for one key, one entry per bucket that has sales, sorted by bucket. Sales usually
+     * arrive in time order and append; an older bucket is inserted in place. A key only pays for
+     * the buckets in which it sold something.
+     */
+    private static class Series {
+        private long[] buckets = new long[4];
+        private double[] revenue = new double[4];
+        private long[] units = new long[4];
+        private int size;
+
+        private synchronized void add(long bucket, double amount, long quantity) {
+            int at;
+            if (size > 0 && buckets[size - 1] == bucket) {
+                at = size - 1;
+            } else if (size == 0 || buckets[size - 1] < bucket) {
+                at = insertAt(size, bucket);
+            } else {
+                at = firstAtOrAfter(bucket);
+                if (at == size || buckets[at] != bucket) {
+                    at = insertAt(at, bucket);
+                }
+            }
+            revenue[at] += amount;
+            units[at] += quantity;
+        }
+
+        private void addAll(Series other) {
+            long[] otherBuckets;
+            double[] otherRevenue;
+            long[] otherUnits;
+            int otherSize;
+            synchronized (other) {
+                otherSize = other.size;
+                otherBuckets = Arrays.copyOf(other.buckets, otherSize);
+                otherRevenue = Arrays.copyOf(other.revenue, otherSize);
+                otherUnits = Arrays.copyOf(other.units, otherSize);
+            }
+            for (int i = 0; i < otherSize; i++) {
+                add(otherBuckets[i], otherRevenue[i], otherUnits[i]);
+            }
+        }
+
+        private synchronized double sumRevenue(long fromBucket, long toBucket) {
+            double total = 0;
+            for (int i = firstAtOrAfter(fromBucket); i < size && buckets[i] <= toBucket; i++) {
+                total += revenue[i];
+            }
+            return total;
+        }
+
+        private synchronized long sumUnits(long fromBucket, long toBucket) {
+            long total = 0;
+            for (int i = firstAtOrAfter(fromBucket); i < size && buckets[i] <= toBucket; i++) {
+                total += units[i];
+            }
+            return total;
+        }
+
+        private int insertAt(int at, long bucket) {
+            if (size == buckets.length) {
+                int capacity = size * 2;
+                buckets = Arrays.copyOf(buckets, capacity);
+                revenue = Arrays.copyOf(revenue, capacity);
+                units = Arrays.copyOf(units, capacity);
+            }
+            System.arraycopy(buckets, at, buckets, at + 1, size - at);
+            System.arraycopy(revenue, at, revenue, at + 1, size - at);
+            System.arraycopy(units, at, units, at + 1, size - at);
+            buckets[at] = bucket;
+            revenue[at] = 0;
+            units[at] = 0;
+            size++;
+            return at;
+        }
+
+        private int firstAtOrAfter(long bucket) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (buckets[mid] < bucket) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Drug;
+import com.drugManagement.data.DrugChangeListener;
+import com.drugManagement.data.DrugIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * A view of drugs kept sorted by one attribute in a skip list, so that exact and range lookups
+ * stay correct without ever re-sorting the drug collection.
+ * Drugs with equal keys keep the order in which they were indexed. The view follows changes to
+ * the ID, name and price of indexed drugs; reads are safe while the view is being updated.
+ *
+ * @param <K> The type of the attribute the view is sorted by
+ */
+public class SortedDrugView<K extends Comparable<? super K>> implements DrugIndex {
+    private final Function<Drug, K> keyOf;
+    private final Comparator<K> keyOrder;
+    private final ConcurrentNavigableMap<Entry<K>, Drug> drugsByKey;
+    private final Map<Drug, Entry<K>> entryByDrug;
+    private final DrugChangeListener keyTracker;
+    private long nextSequence;
+
+    /**
+     * Constructs an empty view sorted by the given attribute. Null keys sort first.
+     *
+     * @param keyOf Extracts the sort key from a drug
+     */
+    public SortedDrugView(Function<Drug, K> keyOf) {
+        this.keyOf = keyOf;
+        this.keyOrder = Comparator.nullsFirst(Comparator.naturalOrder());
+        this.drugsByKey = new ConcurrentSkipListMap<>(this::compare);
+        this.entryByDrug = new ConcurrentHashMap<>();
+        this.keyTracker = new DrugChangeListener() {
+            @Override
+            public void drugIDChanged(Drug drug, String oldID) {
+                reindex(drug);
+            }
+
+            @Override
+            public void nameChanged(Drug drug, String oldName) {
+                reindex(drug);
+            }
+
+            @Override
+            public void priceChanged(Drug drug, double oldPrice) {
+                reindex(drug);
+            }
+        };
+    }
+
+    /**
+     * Adds a drug to the view.
+     *
+     * @param drug The drug to be indexed
+     */
+    @Override
+    public void add(Drug drug) {
+        if (entryByDrug.containsKey(drug)) {
+            return;
+        }
+        Entry<K> entry = new Entry<>(keyOf.apply(drug), nextSequence++);
+        entryByDrug.put(drug, entry);
+        drugsByKey.put(entry, drug);
+        drug.addChangeListener(keyTracker);
+    }
+
+    /**
+     * Removes a drug from the view.
+     *
+     * @param drug The drug to be removed
+     */
+    @Override
+    public void remove(Drug drug) {
+        Entry<K> entry = entryByDrug.remove(drug);
+        if (entry != null) {
+            drugsByKey.remove(entry);
+            drug.removeChangeListener(keyTracker);
+        }
+    }
+
+    /**
+     * Finds the first drug with the given key in O(log n).
+     *
+     * @param key The key to look for
+     * @return The first drug with that key, or null if there is none
+     */
+    public Drug find(K key) {
+        Map.Entry<Entry<K>, Drug> found = drugsByKey.ceilingEntry(new Entry<>(key, Long.MIN_VALUE));
+        if (found == null || keyOrder.compare(found.getKey().key, key) != 0) {
+            return null;
+        }
+        return found.getValue();
+    }
+
+    /**
+     * Returns the drugs whose key lies within the given range, in key order.
+     *
+     * @param from The lowest key (inclusive)
+     * @param to The highest key (inclusive)
+     * @return The drugs within the range
+     */
+    public List<Drug> range(K from, K to) {
+        if (keyOrder.compare(from, to) > 0) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(drugsByKey.subMap(
+                new Entry<>(from, Long.MIN_VALUE), true, new Entry<>(to, Long.MAX_VALUE), true).values());
+    }
+
+    /**
+     * Returns all drugs in key order.
+     *
+     * @param descending true for highest key first
+     * @return The drugs in the view, sorted
+     */
+    public List<Drug> toList(boolean descending) {
+        Collection<Drug> drugs = descending ? drugsByKey.descendingMap().values() : drugsByKey.values();
+        return new ArrayList<>(drugs);
+    }
+
+    /**
+     * Returns the number of drugs in the view.
+     *
+     * @return The number of indexed drugs
+     */
+    public int size() {
+        return entryByDrug.size();
+    }
+
+    private void reindex(Drug drug) {
+        Entry<K> current = entryByDrug.get(drug);
+        K key = keyOf.apply(drug);
+        if (current == null || Objects.equals(current.key, key)) {
+            return;
+        }
+        Entry<K> moved = new Entry<>(key, current.sequence);
+        drugsByKey.put(moved, drug);
+        drugsByKey.remove(current);
+        entryByDrug.put(drug, moved);
+    }
+
+    private int compare(Entry<K> a, Entry<K> b) {
+        int byKey = keyOrder.compare(a.key, b.key);
+        return byKey != 0 ? byKey : Long.compare(a.sequence, b.sequence);
+    }
+
+    private static class Entry<K> {
+        private final K key;
+        private final long sequence;
+
+        private Entry(K key, long sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+}
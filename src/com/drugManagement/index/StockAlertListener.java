@@ -0,0 +1,26 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Drug;
+
+/**
+ * Receives notifications when the stock of a drug crosses a watched threshold.
+ */
+public interface StockAlertListener {
+
+    /**
+     * Called when the stock of a drug drops below a watched threshold.
+     *
+     * @param drug The drug whose stock dropped
+     * @param threshold The threshold that was crossed
+     */
+    void stockBelowThreshold(Drug drug, int threshold);
+
+    /**
+     * Called when the stock of a drug rises back to or above a watched threshold.
+     *
+     * @param drug The drug whose stock was replenished
+     * @param threshold The threshold that was crossed
+     */
+    default void stockReplenished(Drug drug, int threshold) {
+    }
+}
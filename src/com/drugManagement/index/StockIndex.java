@@ -0,0 +1,266 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Drug;
+import com.drugManagement.data.DrugChangeListener;
+import com.drugManagement.data.DrugIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps drugs ordered by stock level so that low-stock queries run in O(log n + k).
+ * Callers can also watch stock thresholds and are notified when a drug's stock
+ * crosses one, instead of polling for low-stock drugs.
+ * The index is safe for concurrent use: stock changes to different drugs update it in parallel,
+ * changes to the same drug are serialized on a lock stripe, and queries never block.
+ * Threshold crossings are worked out under the stripe lock against the stock recorded in the
+ * index and queued on the stripe, then delivered outside the lock by one thread at a time in the
+ * order they were queued. Racing changes to a drug are therefore reported in the order the index
+ * applied them, and a listener never runs while a stripe is locked.
+ */
+public class StockIndex implements DrugIndex {
+    private static final int STRIPES = 64;
+
+    private final NavigableSet<Entry> entries;
+    private final Map<Drug, Entry> entryByDrug;
+    private final NavigableMap<Integer, List<StockAlertListener>> watches;
+    private final Stripe[] stripes;
+    private final AtomicLong nextSequence;
+    private final DrugChangeListener stockTracker;
+
+    /**
+     * Constructs an empty StockIndex.
+     */
+    public StockIndex() {
+        this.entries = new ConcurrentSkipListSet<>();
+        this.entryByDrug = new ConcurrentHashMap<>();
+        this.watches = new ConcurrentSkipListMap<>();
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.nextSequence = new AtomicLong();
+        this.stockTracker = new DrugChangeListener() {
+            @Override
+            public void stockChanged(Drug drug, int oldStock) {
+                reindex(drug);
+            }
+        };
+    }
+
+    /**
+     * Adds a drug to the index.
+     *
+     * @param drug The drug to be indexed
+     */
+    @Override
+    public void add(Drug drug) {
+        synchronized (stripeFor(drug)) {
+            if (entryByDrug.containsKey(drug)) {
+                return;
+            }
+            Entry entry = new Entry(drug.getStock(), nextSequence.incrementAndGet(), drug);
+            entryByDrug.put(drug, entry);
+            entries.add(entry);
+            drug.addChangeListener(stockTracker);
+        }
+    }
+
+    /**
+     * Removes a drug from the index.
+     *
+     * @param drug The drug to be removed
+     */
+    @Override
+    public void remove(Drug drug) {
+        synchronized (stripeFor(drug)) {
+            Entry entry = entryByDrug.remove(drug);
+            if (entry != null) {
+                entries.remove(entry);
+                drug.removeChangeListener(stockTracker);
+            }
+        }
+    }
+
+    /**
+     * Returns the drugs whose stock is below the given threshold, lowest stock first.
+     *
+     * @param threshold The exclusive upper bound on stock
+     * @return A list of Drug objects with stock below the threshold
+     */
+    public List<Drug> below(int threshold) {
+        List<Drug> result = new ArrayList<>();
+        for (Entry entry : entries.headSet(new Entry(threshold, Long.MIN_VALUE, null), false)) {
+            result.add(entry.drug);
+        }
+        return result;
+    }
+
+    /**
+     * Watches a stock threshold. The listener is notified whenever an indexed drug's stock
+     * drops below the threshold or rises back to it. Drugs that are already below the
+     * threshold when the watch is registered are not reported until they cross it.
+     *
+     * @param threshold The threshold to watch
+     * @param listener The listener to notify
+     */
+    public void watch(int threshold, StockAlertListener listener) {
+        watches.computeIfAbsent(threshold, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Stops notifying a listener about a threshold.
+     *
+     * @param threshold The watched threshold
+     * @param listener The listener to remove
+     */
+    public void unwatch(int threshold, StockAlertListener listener) {
+        List<StockAlertListener> listeners = watches.get(threshold);
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Returns the number of drugs in the index.
+     *
+     * @return The number of indexed drugs
+     */
+    public int size() {
+        return entryByDrug.size();
+    }
+
+    /**
+     * Moves a drug to the entry for its current stock. The indexed stock is read from the entry
+     * rather than from the change notification, so notifications that race each other still
+     * leave the drug at its latest stock, and each crossing is measured from the stock the
+     * previous move left.
+     */
+    private void reindex(Drug drug) {
+        Stripe stripe = stripeFor(drug);
+        synchronized (stripe) {
+            Entry current = entryByDrug.get(drug);
+            int newStock = drug.getStock();
+            if (current == null || current.stock == newStock) {
+                return;
+            }
+            Entry moved = new Entry(newStock, current.sequence, drug);
+            entries.remove(current);
+            entries.add(moved);
+            entryByDrug.put(drug, moved);
+            queueCrossings(stripe, drug, current.stock, newStock);
+            if (stripe.delivering || stripe.alerts.isEmpty()) {
+                return;
+            }
+            stripe.delivering = true;
+        }
+        deliver(stripe);
+    }
+
+    // Thresholds are reported in the order the stock passed them: downwards on a drop, upwards on a rise.
+    private void queueCrossings(Stripe stripe, Drug drug, int oldStock, int newStock) {
+        boolean dropped = newStock < oldStock;
+        NavigableMap<Integer, List<StockAlertListener>> crossed =
+                watches.subMap(Math.min(oldStock, newStock), false, Math.max(oldStock, newStock), true);
+        for (Map.Entry<Integer, List<StockAlertListener>> entry
+                : (dropped ? crossed.descendingMap() : crossed).entrySet()) {
+            for (StockAlertListener listener : entry.getValue()) {
+                stripe.alerts.add(new Alert(listener, drug, entry.getKey(), dropped));
+            }
+        }
+    }
+
+    // Drains the stripe's alerts in order. Alerts queued meanwhile, including by the listeners
+    // themselves, are delivered by this loop rather than by the thread that queued them.
+    private void deliver(Stripe stripe) {
+        boolean drained = false;
+        try {
+            while (true) {
+                Alert alert;
+                synchronized (stripe) {
+                    alert = stripe.alerts.poll();
+                    if (alert == null) {
+                        stripe.delivering = false;
+                        drained = true;
+                        return;
+                    }
+                }
+                alert.fire();
+            }
+        } finally {
+            if (!drained) {
+                // A listener threw; the alerts still queued go out with the stripe's next change
+                synchronized (stripe) {
+                    stripe.delivering = false;
+                }
+            }
+        }
+    }
+
+    private Stripe stripeFor(Drug drug) {
+        return stripes[(System.identityHashCode(drug) & 0x7fffffff) % STRIPES];
+    }
+
+    /**
+     * A lock stripe and the crossings queued under it that have not been delivered yet.
+     */
+    private static class Stripe {
+        private final ArrayDeque<Alert> alerts = new ArrayDeque<>();
+        private boolean delivering;
+    }
+
+    /**
+     * One threshold crossing to be reported to one listener.
+     */
+    private static class Alert {
+        private final StockAlertListener listener;
+        private final Drug drug;
+        private final int threshold;
+        private final boolean dropped;
+
+        private Alert(StockAlertListener listener, Drug drug, int threshold, boolean dropped) {
+            this.listener = listener;
+            this.drug = drug;
+            this.threshold = threshold;
+            this.dropped = dropped;
+        }
+
+        private void fire() {
+            if (dropped) {
+                listener.stockBelowThreshold(drug, threshold);
+            } else {
+                listener.stockReplenished(drug, threshold);
+            }
+        }
+    }
+
+    /**
+     * A drug's position in the index: ordered by stock, then by the order drugs were indexed.
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final int stock;
+        private final long sequence;
+        private final Drug drug;
+
+        private Entry(int stock, long sequence, Drug drug) {
+            this.stock = stock;
+            this.sequence = sequence;
+            this.drug = drug;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byStock = Integer.compare(stock, other.stock);
+            return byStock != 0 ? byStock : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.drugManagement.index;
+
+import com.drugManagement.data.Drug;
+import com.drugManagement.data.DrugChangeListener;
+import com.drugManagement.data.DrugIndex;
+import com.drugManagement.data.LinkedConcurrentMap;
+import com.drugManagement.data.Supplier;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from suppliers to the drugs they supply, used for supplier name search.
+ * Each supplier's lower-cased name is cached and refreshed only when the name changes,
+ * so a query costs O(suppliers + result) instead of O(drugs x suppliers).
+ * Suppliers and their drugs are kept in the order they were indexed, so results are stable.
+ * Like the other drug indexes it is not thread-safe for writes, but searches may run concurrently
+ * with each other and with an update; the name cache is replaced as a whole, so concurrent searches never see a
+ * lower-cased name paired with the wrong raw name.
+ */
+public class SupplierIndex implements DrugIndex {
+    private final Map<Supplier, SupplierEntry> entries;
+    private final Set<Drug> indexed;
+    private final DrugChangeListener supplierTracker;
+
+    /**
+     * Constructs an empty SupplierIndex.
+     */
+    public SupplierIndex() {
+        this.entries = new LinkedConcurrentMap<>();
+        this.indexed = ConcurrentHashMap.newKeySet();
+        this.supplierTracker = new DrugChangeListener() {
+            @Override
+            public void supplierAdded(Drug drug, Supplier supplier) {
+                link(drug, supplier);
+            }
+
+            @Override
+            public void supplierRemoved(Drug drug, Supplier supplier) {
+                unlink(drug, supplier);
+            }
+        };
+    }
+
+    /**
+     * Adds a drug and its current suppliers to the index.
+     *
+     * @param drug The drug to be indexed
+     */
+    @Override
+    public void add(Drug drug) {
+        if (indexed.add(drug)) {
+            for (Supplier supplier : drug.getSupplier()) {
+                link(drug, supplier);
+            }
+            drug.addChangeListener(supplierTracker);
+        }
+    }
+
+    /**
+     * Removes a drug from the index.
+     *
+     * @param drug The drug to be removed
+     */
+    @Override
+    public void remove(Drug drug) {
+        if (indexed.remove(drug)) {
+            drug.removeChangeListener(supplierTracker);
+            for (Supplier supplier : drug.getSupplier()) {
+                unlink(drug, supplier);
+            }
+        }
+    }
+
+    /**
+     * Finds the drugs supplied by any supplier whose name contains the given text, ignoring case.
+     *
+     * @param supplierName The name (or part of the name) of the supplier
+     * @return A list of Drug objects supplied by the matching supplier(s)
+     */
+    public List<Drug> search(String supplierName) {
+        String query = supplierName.toLowerCase();
+        List<Drug> result = new ArrayList<>();
+        Set<Drug> seen = new LinkedHashSet<>();
+        for (Map.Entry<Supplier, SupplierEntry> entry : entries.entrySet()) {
+            if (entry.getValue().lowerName(entry.getKey()).contains(query)) {
+                for (Drug drug : entry.getValue().drugs.keySet()) {
+                    if (seen.add(drug)) {
+                        result.add(drug);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of suppliers that supply at least one indexed drug.
+     *
+     * @return The number of indexed suppliers
+     */
+    public int supplierCount() {
+        return entries.size();
+    }
+
+    private void link(Drug drug, Supplier supplier) {
+        entries.computeIfAbsent(supplier, key -> new SupplierEntry())
+                .drugs.merge(drug, 1, Integer::sum);
+    }
+
+    private void unlink(Drug drug, Supplier supplier) {
+        SupplierEntry entry = entries.get(supplier);
+        if (entry == null) {
+            return;
+        }
+        Integer links = entry.drugs.get(drug);
+        if (links == null) {
+            return;
+        }
+        if (links > 1) {
+            entry.drugs.put(drug, links - 1);
+        } else {
+            entry.drugs.remove(drug);
+            if (entry.drugs.isEmpty()) {
+                entries.remove(supplier);
+            }
+        }
+    }
+
+    /**
+     * The drugs linked to one supplier, counted per link, and the supplier's cached lower-cased name.
+     */
+    private static class SupplierEntry {
+        private final Map<Drug, Integer> drugs = new LinkedConcurrentMap<>();
+        private volatile CachedName name = new CachedName(null);
+
+        private String lowerName(Supplier supplier) {
+            String rawName = supplier.getName();
+            CachedName cached = name;
+            if (rawName != cached.raw) {
+                cached = new CachedName(rawName);
+                name = cached;
+            }
+            return cached.lower;
+        }
+    }
+
+    /**
+     * A supplier name together with its lower-cased form.
+     */
+    private static class CachedName {
+        private final String raw;
+        private final String lower;
+
+        private CachedName(String raw) {
+            this.raw = raw;
+            this.lower = raw == null ? "" : raw.toLowerCase();
+        }
+    }
+}
@@ -3,133 +3,776 @@ package com.drugManagement.system;
 import com.drugManagement.data.*;
 import com.drugManagement.algorithms.*;
 import com.drugManagement.database.DatabaseManager;
+import com.drugManagement.database.PurchaseJournal;
+import com.drugManagement.database.WriteBehindQueue;
+import com.drugManagement.index.CustomerPurchaseIndex;
+import com.drugManagement.index.InventoryColumns;
+import com.drugManagement.index.NameIndex;
+import com.drugManagement.index.PriceIndex;
+import com.drugManagement.index.RevenueAggregator;
+import com.drugManagement.index.SalesRollup;
+import com.drugManagement.index.SortedDrugView;
+import com.drugManagement.index.StockAlertListener;
+import com.drugManagement.index.StockIndex;
+import com.drugManagement.index.SupplierIndex;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.StampedLock;
 
 public class DrugManagementSystem {
-    private List<Drug> drugs;
-    private List<Supplier> suppliers;
-    private List<Customer> customers;
-    private List<Purchase> purchases;
+    private static final long DEFAULT_STARTUP_BUDGET_MILLIS = 120_000;
+    // How many times a read runs without the lock before it waits for the writer instead.
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private DrugCollection drugs;
+    private PriceIndex priceIndex;
+    private NameIndex nameIndex;
+    private SupplierIndex supplierIndex;
+    private StockIndex stockIndex;
+    private SortedDrugView<String> drugsByID;
+    private SortedDrugView<String> drugsByName;
+    private InventoryColumns inventoryColumns;
+    private SnapshotList<Supplier> suppliers;
+    private SupplyRegistry supplyLinks;
+    private SnapshotList<Customer> customers;
+    private Map<String, Customer> customersByID;
+    private SnapshotList<Purchase> purchases;
+    private CustomerPurchaseIndex purchasesByCustomer;
+    // When set, purchases are kept off the heap in the journal instead of the two fields above.
+    private PurchaseJournal purchaseJournal;
+    private RevenueAggregator revenue;
+    private SalesRollup salesRollup;
+    private Map<String, Long> startupTimings;
+    private volatile WriteBehindQueue writeBehind;
+    // Guards the drug collection and its indexes, the supplier and customer lists and the supply
+    // links. Reads are optimistic: the structures behind it are concurrent or copy-on-write, so a
+    // read racing a write sees stale or partial data, or fails, but never corrupts or hangs, and
+    // validating the stamp afterwards throws such a result away.
+    private final StampedLock lock = new StampedLock();
+    // Guards only the purchase list, so recording a sale never waits on the lock above. Stock is
+    // reserved lock-free on the drug, and the per-customer index serializes each customer on its own.
+    private final StampedLock purchaseLock = new StampedLock();
 
     public DrugManagementSystem() {
-        this.drugs = new ArrayList<>();
-        this.suppliers = new ArrayList<>();
-        this.customers = new ArrayList<>();
-        this.purchases = new ArrayList<>();
-        loadDataFromDatabase();
+        this(DEFAULT_STARTUP_BUDGET_MILLIS);
+    }
+
+    public DrugManagementSystem(long startupBudgetMillis) {
+        this(startupBudgetMillis, null);
+    }
+
+    public DrugManagementSystem(long startupBudgetMillis, PurchaseJournal purchaseJournal) {
+        this.drugs = new DrugCollection();
+        this.priceIndex = new PriceIndex();
+        this.nameIndex = new NameIndex();
+        this.supplierIndex = new SupplierIndex();
+        this.stockIndex = new StockIndex();
+        this.drugsByID = new SortedDrugView<>(Drug::getDrugID);
+        this.drugsByName = new SortedDrugView<>(Drug::getName);
+        this.inventoryColumns = new InventoryColumns();
+        this.drugs.addIndex(priceIndex);
+        this.drugs.addIndex(nameIndex);
+        this.drugs.addIndex(supplierIndex);
+        this.drugs.addIndex(stockIndex);
+        this.drugs.addIndex(drugsByID);
+        this.drugs.addIndex(drugsByName);
+        this.drugs.addIndex(inventoryColumns);
+        this.suppliers = new SnapshotList<>();
+        this.supplyLinks = new SupplyRegistry();
+        this.customers = new SnapshotList<>();
+        this.customersByID = new HashMap<>();
+        this.purchases = new SnapshotList<>();
+        this.purchasesByCustomer = new CustomerPurchaseIndex();
+        this.purchaseJournal = purchaseJournal;
+        this.revenue = new RevenueAggregator();
+        this.salesRollup = new SalesRollup();
+        this.startupTimings = new LinkedHashMap<>();
+        loadDataFromDatabase(startupBudgetMillis);
     }
 
-    private void loadDataFromDatabase() {
-        drugs.addAll(DatabaseManager.loadAllDrugs());
-        suppliers.addAll(DatabaseManager.loadAllSuppliers());
-        customers.addAll(DatabaseManager.loadAllCustomers());
-        purchases.addAll(DatabaseManager.loadAllPurchases());
+    // Streams the four tables on separate threads, each straight into its own structures,
+    // and fails startup if they do not all finish within the budget.
+    private void loadDataFromDatabase(long budgetMillis) {
+        ExecutorService loaders = Executors.newFixedThreadPool(5, runnable -> {
+            Thread thread = new Thread(runnable, "startup-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, Future<Integer>> loads = new LinkedHashMap<>();
+        Map<String, Long> startNanos = new ConcurrentHashMap<>();
+        Map<String, Long> endNanos = new ConcurrentHashMap<>();
+        Future<Integer> drugLoad = loaders.submit(timed("drugs", startNanos, endNanos,
+                () -> DatabaseManager.streamDrugs(drugs::addDrug)));
+        Future<Integer> customerLoad = loaders.submit(timed("customers", startNanos, endNanos,
+                () -> DatabaseManager.streamCustomers(this::indexCustomer)));
+        Future<Integer> supplierLoad = loaders.submit(timed("suppliers", startNanos, endNanos,
+                () -> DatabaseManager.streamSuppliers(suppliers::add)));
+        loads.put("drugs", drugLoad);
+        loads.put("suppliers", supplierLoad);
+        loads.put("customers", customerLoad);
+        // Supply links are linked into the loaded drugs and suppliers, so they wait for both.
+        Future<Integer> supplyLinkLoad = loaders.submit(() -> {
+            drugLoad.get();
+            supplierLoad.get();
+            Map<String, Supplier> suppliersByID = new HashMap<>();
+            for (Supplier supplier : suppliers.snapshot()) {
+                suppliersByID.put(supplier.getSupplierID(), supplier);
+            }
+            return timed("supply links", startNanos, endNanos,
+                    () -> DatabaseManager.streamSupplyLinks(link -> {
+                        supplyLinks.link(link.getSupplierID(), link.getDrugID());
+                        Supplier supplier = suppliersByID.get(link.getSupplierID());
+                        Drug drug = drugs.getDrug(link.getDrugID());
+                        if (supplier != null && drug != null) {
+                            supplier.addSuppliedDrug(drug);
+                        }
+                    })).call();
+        });
+        loads.put("supply links", supplyLinkLoad);
+        // Purchases resolve their drug and customer against the loaded entities, and are rolled up
+        // by supplier, so they stream once those tables and the supply links are in. Per-drug
+        // figures come from each drug's sales stats, so purchases are not collected on the drugs;
+        // customers are updated as each purchase is stored, the same way a new sale is.
+        // The sales rollup is built from chunks of the stream in parallel and merged at the end.
+        loads.put("purchases", loaders.submit(() -> {
+            drugLoad.get();
+            customerLoad.get();
+            supplyLinkLoad.get();
+            SalesRollup.ParallelBuilder rollupBuilder = new SalesRollup.ParallelBuilder();
+            return timed("purchases", startNanos, endNanos, () -> {
+                int rows = DatabaseManager.streamPurchases(drugs::getDrug, customersByID::get,
+                        false, false, purchase -> {
+                            storePurchase(purchase);
+                            recordSale(purchase);
+                            rollupBuilder.accept(purchase);
+                        });
+                salesRollup.merge(rollupBuilder.finish());
+                return rows;
+            }).call();
+        }));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        try {
+            for (Map.Entry<String, Future<Integer>> load : loads.entrySet()) {
+                String table = load.getKey();
+                int rows;
+                try {
+                    rows = load.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    throw new IllegalStateException("Startup load did not finish within " + budgetMillis
+                            + " ms, still loading " + table + "; finished: " + startupTimings);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Startup load of " + table + " failed", e.getCause());
+                }
+                long millis = TimeUnit.NANOSECONDS.toMillis(endNanos.get(table) - startNanos.get(table));
+                startupTimings.put(table, millis);
+                System.out.println("Loaded " + rows + " " + table + " in " + millis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during startup load", e);
+        } finally {
+            loaders.shutdownNow();
+        }
+    }
+
+    private static Callable<Integer> timed(String table, Map<String, Long> startNanos, Map<String, Long> endNanos,
+                                           Callable<Integer> load) {
+        return () -> {
+            startNanos.put(table, System.nanoTime());
+            try {
+                return load.call();
+            } finally {
+                endNanos.put(table, System.nanoTime());
+            }
+        };
+    }
+
+    public Map<String, Long> getStartupLoadTimings() {
+        return Collections.unmodifiableMap(startupTimings);
     }
 
     public void addDrug(Drug drug) {
-        drugs.add(drug);
-        DatabaseManager.saveDrug(drug);
+        write(() -> drugs.addDrug(drug));
+        saveDrug(drug);
     }
 
+    // Removes the drug along with its supply links, so no supplier keeps listing it. The links
+    // are deleted from the database; the drug row itself is kept.
     public void removeDrug(String drugID) {
-        drugs.removeIf(drug -> drug.getDrugID().equals(drugID));
-        // Note: Database removal not implemented in DatabaseManager
+        long stamp = lock.writeLock();
+        List<SupplyLink> removed;
+        try {
+            Drug drug = drugs.getDrug(drugID);
+            if (drug == null || !drugs.removeDrug(drugID)) {
+                return;
+            }
+            removed = supplyLinks.unlinkDrug(drugID);
+            for (Supplier supplier : drug.getSupplier()) {
+                supplier.removeSuppliedDrug(drug);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        deleteSupplyLinks(removed);
     }
 
     public Drug searchDrugByID(String drugID) {
-        return SearchingAlgorithms.binarySearch(drugs, drugID);
+        return read(() -> drugs.getDrug(drugID));
     }
 
     public List<Drug> searchDrugsByName(String name) {
-        return SearchingAlgorithms.searchByName(drugs, name);
+        return read(() -> SearchingAlgorithms.searchByName(nameIndex, name));
     }
 
     public List<Drug> searchDrugsByPriceRange(double minPrice, double maxPrice) {
-        return SearchingAlgorithms.searchByPriceRange(drugs, minPrice, maxPrice);
+        return read(() -> SearchingAlgorithms.searchByPriceRange(priceIndex, minPrice, maxPrice));
+    }
+
+    public List<Drug> searchDrugsByPriceRange(double minPrice, double maxPrice, boolean descending, int limit) {
+        return read(() -> priceIndex.range(minPrice, maxPrice, descending, limit));
     }
 
     public List<Drug> searchDrugsBySupplier(String supplierName) {
-        return SearchingAlgorithms.searchBySupplier(drugs, supplierName);
+        return read(() -> SearchingAlgorithms.searchBySupplier(supplierIndex, supplierName));
+    }
+
+    public List<Drug> searchDrugsByIDRange(String fromID, String toID) {
+        return read(() -> drugsByID.range(fromID, toID));
+    }
+
+    public List<Drug> getDrugsSortedByID() {
+        return read(() -> drugsByID.toList(false));
+    }
+
+    public List<Drug> getDrugsSortedByName() {
+        return read(() -> drugsByName.toList(false));
+    }
+
+    public List<Drug> getDrugsSortedByPrice(boolean descending) {
+        return read(() -> priceIndex.toList(descending));
     }
 
     public void sortDrugsByName() {
-        SortingAlgorithms.mergeSort(drugs, Comparator.comparing(Drug::getName));
+        sortDrugsByName(false);
+    }
+
+    public void sortDrugsByName(boolean parallel) {
+        write(() -> drugs.reorder(list -> SortingAlgorithms.sortByName(list, parallel)));
     }
 
     public void sortDrugsByPrice() {
-        SortingAlgorithms.mergeSort(drugs, Comparator.comparing(Drug::getPrice));
+        sortDrugsByPrice(false);
+    }
+
+    public void sortDrugsByPrice(boolean parallel) {
+        write(() -> drugs.reorder(list -> SortingAlgorithms.sortByPrice(list, parallel)));
     }
 
     public void addSupplier(Supplier supplier) {
-        suppliers.add(supplier);
-        DatabaseManager.saveSupplier(supplier);
+        write(() -> suppliers.add(supplier));
+        saveSupplier(supplier);
+    }
+
+    public void linkSupplier(Supplier supplier, Drug drug) {
+        linkSupplier(supplier, List.of(drug));
+    }
+
+    // Links a supplier to many drugs at once, such as a wholesaler's whole price list, and
+    // persists only the links that are new, in one batch.
+    public void linkSupplier(Supplier supplier, Collection<Drug> suppliedDrugs) {
+        List<SupplyLink> added = new ArrayList<>();
+        write(() -> {
+            for (Drug drug : suppliedDrugs) {
+                if (supplyLinks.link(supplier.getSupplierID(), drug.getDrugID())) {
+                    added.add(new SupplyLink(supplier.getSupplierID(), drug.getDrugID()));
+                }
+                supplier.addSuppliedDrug(drug);
+            }
+        });
+        saveSupplyLinks(added);
+    }
+
+    // Removes the supplier along with its supply links. The links are deleted from the
+    // database; the supplier row itself is kept.
+    public void removeSupplier(Supplier supplier) {
+        long stamp = lock.writeLock();
+        List<SupplyLink> removed;
+        try {
+            if (!suppliers.remove(supplier)) {
+                return;
+            }
+            removed = supplyLinks.unlinkSupplier(supplier.getSupplierID());
+            for (Drug drug : supplier.getSuppliedDrugs()) {
+                supplier.removeSuppliedDrug(drug);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        deleteSupplyLinks(removed);
+    }
+
+    public void unlinkSupplier(Supplier supplier, Drug drug) {
+        long stamp = lock.writeLock();
+        boolean removed;
+        try {
+            removed = supplyLinks.unlink(supplier.getSupplierID(), drug.getDrugID());
+            supplier.removeSuppliedDrug(drug);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (removed) {
+            deleteSupplyLinks(List.of(new SupplyLink(supplier.getSupplierID(), drug.getDrugID())));
+        }
+    }
+
+    public List<String> getDrugIDsSuppliedBy(String supplierID) {
+        return read(() -> List.copyOf(supplyLinks.getDrugIDs(supplierID)));
+    }
+
+    public List<String> getSupplierIDsForDrug(String drugID) {
+        return read(() -> List.copyOf(supplyLinks.getSupplierIDs(drugID)));
     }
 
     public void addCustomer(Customer customer) {
+        write(() -> indexCustomer(customer));
+        saveCustomer(customer);
+    }
+
+    private void indexCustomer(Customer customer) {
         customers.add(customer);
-        DatabaseManager.saveCustomer(customer);
+        customersByID.put(customer.getCustomerID(), customer);
     }
 
     public void recordPurchase(Purchase purchase) {
-        purchases.add(purchase);
-        DatabaseManager.savePurchase(purchase);
+        if (purchaseJournal != null) {
+            // Checked before the stock is reserved, so a purchase the journal cannot hold sells nothing
+            PurchaseJournal.checkPurchaseID(purchase.getPurchaseID());
+        }
+        // Reserve the stock first, so a sale that would oversell is rejected before it is recorded
+        reserveStock(purchase.getDrug(), purchase.getQuantity());
+        try {
+            storePurchase(purchase);
+        } catch (RuntimeException e) {
+            releaseStock(purchase.getDrug(), purchase.getQuantity(), e);
+            throw e;
+        }
+        // Persisted before the running totals are updated, so a failure in them cannot lose the sale
+        try {
+            savePurchase(purchase);
+        } finally {
+            recordSale(purchase);
+            salesRollup.record(purchase);
+        }
+    }
+
+    private void reserveStock(Drug drug, int quantity) {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            // The queue takes the units and journals the decrement in one step, keeping both in order
+            if (!queue.decrementStock(drug, quantity)) {
+                throw new InsufficientStockException(drug.getDrugID(), quantity);
+            }
+            return;
+        }
+        if (!drug.decrementStock(quantity)) {
+            throw new InsufficientStockException(drug.getDrugID(), quantity);
+        }
+        boolean taken;
+        try {
+            taken = DatabaseManager.decrementStock(drug.getDrugID(), quantity);
+        } catch (RuntimeException e) {
+            // The database could not be reached, which is not the same as running out of stock
+            drug.incrementStock(quantity);
+            throw e;
+        }
+        if (!taken) {
+            drug.incrementStock(quantity);
+            throw new InsufficientStockException(drug.getDrugID(), quantity);
+        }
+    }
+
+    // Gives back units reserved for a sale that could not be stored. A failure to do so is
+    // attached to the exception that aborted the sale.
+    private void releaseStock(Drug drug, int quantity, RuntimeException cause) {
+        try {
+            WriteBehindQueue queue = writeBehind;
+            if (queue != null) {
+                queue.returnStock(drug, quantity);
+            } else {
+                drug.incrementStock(quantity);
+                DatabaseManager.incrementStock(drug.getDrugID(), quantity);
+            }
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void recordSale(Purchase purchase) {
+        revenue.record(purchase);
+        Date date = purchase.getPurchaseDate();
+        purchase.getDrug().getSalesStats().record(purchase.getQuantity(), purchase.getTotalCost(),
+                date == null ? System.currentTimeMillis() : date.getTime());
+    }
+
+    // Journaled purchases live off the heap, so their customer keeps only the running totals.
+    private void storePurchase(Purchase purchase) {
+        Customer customer = purchase.getCustomer();
+        if (purchaseJournal != null) {
+            purchaseJournal.append(purchase);
+            customer.countPurchase(purchase);
+        } else {
+            long stamp = purchaseLock.writeLock();
+            try {
+                purchases.add(purchase);
+            } finally {
+                purchaseLock.unlockWrite(stamp);
+            }
+            purchasesByCustomer.add(purchase);
+            customer.addPurchase(purchase);
+        }
+    }
+
+    public void enableWriteBehind(WriteBehindQueue queue) {
+        this.writeBehind = queue;
+    }
+
+    public void disableWriteBehind() {
+        WriteBehindQueue queue = writeBehind;
+        writeBehind = null;
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    public void flush() throws InterruptedException {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            queue.flush();
+        }
+    }
+
+    private void saveDrug(Drug drug) {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            queue.saveDrug(drug);
+        } else {
+            DatabaseManager.saveDrug(drug);
+        }
+    }
+
+    private void saveSupplier(Supplier supplier) {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            queue.saveSupplier(supplier);
+        } else {
+            DatabaseManager.saveSupplier(supplier);
+        }
+    }
 
-        // Update drug stock
-        Drug drug = purchase.getDrug();
-        drug.setStock(drug.getStock() - purchase.getQuantity());
-        DatabaseManager.saveDrug(drug);
+    private void saveSupplyLinks(List<SupplyLink> links) {
+        if (links.isEmpty()) {
+            return;
+        }
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            for (SupplyLink link : links) {
+                queue.saveSupplyLink(link);
+            }
+        } else {
+            DatabaseManager.saveSupplyLinks(links);
+        }
+    }
+
+    private void deleteSupplyLinks(List<SupplyLink> links) {
+        if (links.isEmpty()) {
+            return;
+        }
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            for (SupplyLink link : links) {
+                queue.deleteSupplyLink(link);
+            }
+        } else {
+            DatabaseManager.deleteSupplyLinks(links);
+        }
+    }
+
+    private void saveCustomer(Customer customer) {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            queue.saveCustomer(customer);
+        } else {
+            DatabaseManager.saveCustomer(customer);
+        }
+    }
+
+    private void savePurchase(Purchase purchase) {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            queue.savePurchase(purchase);
+        } else {
+            DatabaseManager.savePurchase(purchase);
+        }
     }
 
     public List<Purchase> getPurchaseHistory(Customer customer) {
-        return purchases.stream()
-                .filter(p -> p.getCustomer().equals(customer))
-                .toList();
+        if (purchaseJournal != null) {
+            return purchaseJournal.historyList(customer);
+        }
+        return purchasesByCustomer.getHistory(customer.getCustomerID());
+    }
+
+    public List<Purchase> getRecentPurchases(Customer customer, int limit) {
+        if (purchaseJournal != null) {
+            return materialize(purchaseJournal.history(customer, true), limit);
+        }
+        return purchasesByCustomer.latest(customer.getCustomerID(), limit);
+    }
+
+    public List<Purchase> getPurchasesBefore(Customer customer, Date cursor, int limit) {
+        if (purchaseJournal != null) {
+            return materialize(purchaseJournal.historyBefore(customer, cursor.getTime()), limit);
+        }
+        return purchasesByCustomer.before(customer.getCustomerID(), cursor, limit);
+    }
+
+    // Reads journaled purchases in place; only available when purchases are journaled.
+    public PurchaseJournal.Cursor getPurchaseCursor() {
+        if (purchaseJournal == null) {
+            throw new IllegalStateException("Purchases are not journaled");
+        }
+        return purchaseJournal.cursor();
+    }
+
+    public PurchaseJournal.Cursor getPurchaseHistoryCursor(Customer customer, boolean newestFirst) {
+        if (purchaseJournal == null) {
+            throw new IllegalStateException("Purchases are not journaled");
+        }
+        return purchaseJournal.history(customer, newestFirst);
+    }
+
+    private static List<Purchase> materialize(PurchaseJournal.Cursor cursor, int limit) {
+        List<Purchase> result = new ArrayList<>();
+        while (result.size() < limit && cursor.next()) {
+            result.add(cursor.toPurchase());
+        }
+        return result;
     }
 
     public double calculateTotalRevenue() {
-        return purchases.stream()
-                .mapToDouble(p -> p.getQuantity() * p.getDrug().getPrice())
-                .sum();
+        return revenue.getTotalRevenue();
+    }
+
+    public double calculateRevenueForDrug(String drugID) {
+        return revenue.getRevenueForDrug(drugID);
+    }
+
+    public double calculateRevenueForCustomer(String customerID) {
+        return revenue.getRevenueForCustomer(customerID);
     }
 
     public Map<Drug, Integer> getInventoryStatus() {
-        Map<Drug, Integer> inventory = new HashMap<>();
-        for (Drug drug : drugs) {
-            inventory.put(drug, drug.getStock());
+        return read(inventoryColumns::stockByDrug);
+    }
+
+    public int countLowStockDrugs(int threshold) {
+        return read(() -> inventoryColumns.countStockBelow(threshold));
+    }
+
+    // Column scans for analytics over the whole inventory. They return drugs in no particular
+    // order; getLowStockDrugs and searchDrugsByPriceRange keep their sorted results.
+    public List<Drug> scanLowStockDrugs(int threshold) {
+        return read(() -> inventoryColumns.stockBelow(threshold));
+    }
+
+    public List<Drug> scanDrugsByPriceRange(double minPrice, double maxPrice) {
+        return read(() -> inventoryColumns.priceBetween(minPrice, maxPrice));
+    }
+
+    public int countDrugsByPriceRange(double minPrice, double maxPrice) {
+        return read(() -> inventoryColumns.countPriceBetween(minPrice, maxPrice));
+    }
+
+    public List<Drug> scanDrugsByExactName(String name) {
+        return read(() -> inventoryColumns.withName(name));
+    }
+
+    public long getTotalStock() {
+        return read(inventoryColumns::totalStock);
+    }
+
+    public double getInventoryValue() {
+        return read(inventoryColumns::inventoryValue);
+    }
+
+    public double getSalesVelocity(String drugID, SalesStats.Window window) {
+        Drug drug = searchDrugByID(drugID);
+        return drug == null ? 0 : drug.getSalesStats().getVelocity(window, System.currentTimeMillis());
+    }
+
+    // Ranks drugs by decayed sales velocity, keeping only the top entries in a small heap.
+    public List<Drug> getFastestMovingDrugs(SalesStats.Window window, int limit) {
+        long now = System.currentTimeMillis();
+        Map<Drug, Double> velocities = new IdentityHashMap<>();
+        PriorityQueue<Drug> top = new PriorityQueue<>(Comparator.comparingDouble(velocities::get));
+        for (Drug drug : getAllDrugs()) {
+            if (limit <= 0) {
+                break;
+            }
+            velocities.put(drug, drug.getSalesStats().getVelocity(window, now));
+            top.add(drug);
+            if (top.size() > limit) {
+                velocities.remove(top.poll());
+            }
         }
-        return inventory;
+        List<Drug> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble((Drug drug) -> velocities.get(drug)).reversed());
+        return ranked;
+    }
+
+    public double getRolledUpRevenue(SalesRollup.Dimension dimension, String key,
+                                     SalesRollup.Granularity granularity, Date from, Date to) {
+        return salesRollup.getRevenue(dimension, key, granularity, from.getTime(), to.getTime());
+    }
+
+    public long getRolledUpUnits(SalesRollup.Dimension dimension, String key,
+                                 SalesRollup.Granularity granularity, Date from, Date to) {
+        return salesRollup.getUnits(dimension, key, granularity, from.getTime(), to.getTime());
+    }
+
+    public Map<String, Double> getRevenueBreakdown(SalesRollup.Dimension dimension,
+                                                   SalesRollup.Granularity granularity, Date from, Date to) {
+        return salesRollup.getRevenueByKey(dimension, granularity, from.getTime(), to.getTime());
+    }
+
+    public Map<String, Long> getUnitsBreakdown(SalesRollup.Dimension dimension,
+                                               SalesRollup.Granularity granularity, Date from, Date to) {
+        return salesRollup.getUnitsByKey(dimension, granularity, from.getTime(), to.getTime());
     }
 
     public List<Drug> getLowStockDrugs(int threshold) {
-        return drugs.stream()
-                .filter(drug -> drug.getStock() < threshold)
-                .toList();
+        return stockIndex.below(threshold);
+    }
+
+    public void watchStockThreshold(int threshold, StockAlertListener listener) {
+        stockIndex.watch(threshold, listener);
+    }
+
+    public void unwatchStockThreshold(int threshold, StockAlertListener listener) {
+        stockIndex.unwatch(threshold, listener);
     }
 
+    // A new ID moves the drug's supply links and sales totals along with it. The new ID must not
+    // belong to another drug.
     public void updateDrugInfo(String drugID, Drug updatedDrug) {
-        Drug drug = searchDrugByID(drugID);
-        if (drug != null) {
+        String newID = updatedDrug.getDrugID();
+        long stamp = lock.writeLock();
+        Drug drug;
+        List<SupplyLink> unlinked = List.of();
+        List<SupplyLink> linked = new ArrayList<>();
+        try {
+            drug = drugs.getDrug(drugID);
+            if (drug == null) {
+                return;
+            }
+            boolean rekeyed = !drugID.equals(newID);
+            if (rekeyed && drugs.getDrug(newID) != null) {
+                throw new IllegalArgumentException("Drug ID " + newID + " is already in use");
+            }
             drug.setName(updatedDrug.getName());
-            drug.setDrugID(updatedDrug.getDrugID());
+            drug.setDrugID(newID);
             drug.setPrice(updatedDrug.getPrice());
             drug.setStock(updatedDrug.getStock());
-            DatabaseManager.saveDrug(drug);
+            if (rekeyed) {
+                unlinked = supplyLinks.unlinkDrug(drugID);
+                for (SupplyLink link : unlinked) {
+                    supplyLinks.link(link.getSupplierID(), newID);
+                    linked.add(new SupplyLink(link.getSupplierID(), newID));
+                }
+                revenue.rekeyDrug(drugID, newID);
+                salesRollup.rekey(SalesRollup.Dimension.DRUG, drugID, newID);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
         }
+        saveDrug(drug);
+        deleteSupplyLinks(unlinked);
+        saveSupplyLinks(linked);
     }
 
     public List<Drug> getAllDrugs() {
-        return new ArrayList<>(drugs);
+        return read(drugs::getAllDrugs);
     }
 
     public List<Supplier> getAllSuppliers() {
-        return new ArrayList<>(suppliers);
+        return read(suppliers::snapshot);
     }
 
     public List<Customer> getAllCustomers() {
-        return new ArrayList<>(customers);
+        return read(customers::snapshot);
     }
 
     public List<Purchase> getAllPurchases() {
-        return new ArrayList<>(purchases);
+        if (purchaseJournal != null) {
+            return materialize(purchaseJournal.cursor(), Integer.MAX_VALUE);
+        }
+        long stamp = purchaseLock.readLock();
+        try {
+            return purchases.snapshot();
+        } finally {
+            purchaseLock.unlockRead(stamp);
+        }
+    }
+
+    // Runs a read without blocking and keeps its result only if no write started meanwhile. A read
+    // that fails is retried the same way unless it failed on consistent data. After a few lost
+    // races it takes the read lock, so a steady stream of writes cannot starve it.
+    private <T> T read(Read<T> read) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            T result;
+            try {
+                result = read.get();
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void write(Runnable update) {
+        long stamp = lock.writeLock();
+        try {
+            update.run();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private interface Read<T> {
+        T get();
     }
 }
\ No newline at end of file
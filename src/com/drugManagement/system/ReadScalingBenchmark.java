@@ -0,0 +1,155 @@
+package com.drugManagement.system;
+
+import com.drugManagement.data.Drug;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Measures how catalog reads scale with the number of threads while a share of the operations
+// write. Each step runs a fixed time at 1, 2, 4, 8, 16 and 32 threads and prints the throughput
+// and its speedup over one thread. It runs against the configured database: the catalog is loaded
+// from it, and the writes nudge drug prices, which are saved and put back when the run ends.
+//
+// Usage: ReadScalingBenchmark [seconds per step] [write percent]
+public class ReadScalingBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final double PRICE_NUDGE = 0.01;
+
+    public static void main(String[] args) throws InterruptedException {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+        int writePercent = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        if (seconds < 1 || writePercent < 0 || writePercent > 100) {
+            throw new IllegalArgumentException("Usage: ReadScalingBenchmark [seconds per step] [write percent]");
+        }
+
+        DrugManagementSystem system = new DrugManagementSystem();
+        List<Drug> catalog = system.getAllDrugs();
+        if (catalog.isEmpty()) {
+            System.out.println("The catalog is empty; add some drugs before benchmarking.");
+            return;
+        }
+        String[] ids = new String[catalog.size()];
+        String[] names = new String[catalog.size()];
+        double[] prices = new double[catalog.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Drug drug = catalog.get(i);
+            ids[i] = drug.getDrugID();
+            names[i] = drug.getName() == null ? "" : drug.getName();
+            prices[i] = drug.getPrice();
+        }
+        Workload workload = new Workload(system, ids, names, prices, writePercent);
+
+        System.out.printf("%d drugs, %d%% writes, %ds per step%n", ids.length, writePercent, seconds);
+        // The first step warms the JIT up and is not reported.
+        run(workload, THREAD_COUNTS[THREAD_COUNTS.length - 1], 1);
+        double single = 0;
+        for (int threads : THREAD_COUNTS) {
+            double opsPerSecond = run(workload, threads, seconds);
+            if (threads == 1) {
+                single = opsPerSecond;
+            }
+            System.out.printf("%2d threads: %,14.0f ops/s  x%.2f%n", threads, opsPerSecond, opsPerSecond / single);
+        }
+        workload.restorePrices();
+    }
+
+    private static double run(Workload workload, int threads, long seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                long checksum = 0;
+                while (running.get()) {
+                    checksum += workload.step();
+                    done++;
+                }
+                operations.add(done);
+                workload.results.add(checksum);
+            }, "benchmark-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(seconds * 1000);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() * 1e9 / (System.nanoTime() - begin);
+    }
+
+    // One operation of the mix: mostly the catalog's read paths, and now and then a price change,
+    // which takes the write lock and moves the drug in the price index.
+    private static class Workload {
+        private final DrugManagementSystem system;
+        private final String[] ids;
+        private final String[] names;
+        private final double[] prices;
+        private final int writePercent;
+        // Keeps the JIT from discarding reads whose results are otherwise unused.
+        private final LongAdder results = new LongAdder();
+
+        private Workload(DrugManagementSystem system, String[] ids, String[] names, double[] prices, int writePercent) {
+            this.system = system;
+            this.ids = ids;
+            this.names = names;
+            this.prices = prices;
+            this.writePercent = writePercent;
+        }
+
+        private long step() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int i = random.nextInt(ids.length);
+            if (random.nextInt(100) < writePercent) {
+                nudgePrice(i);
+                return 0;
+            }
+            switch (random.nextInt(5)) {
+                case 0:
+                    return system.searchDrugByID(ids[i]) == null ? 0 : 1;
+                case 1:
+                    String name = names[i];
+                    int from = name.length() > 3 ? random.nextInt(name.length() - 3) : 0;
+                    return system.searchDrugsByName(name.substring(from, Math.min(name.length(), from + 4))).size();
+                case 2:
+                    return system.searchDrugsByPriceRange(prices[i] * 0.95, prices[i] * 1.05, false, 20).size();
+                case 3:
+                    return system.searchDrugsByIDRange(ids[i], ids[(i + 1) % ids.length]).size();
+                default:
+                    return system.getAllDrugs().size() + system.countLowStockDrugs(10);
+            }
+        }
+
+        // Toggles between the drug's original price and a slightly higher one.
+        private void nudgePrice(int i) {
+            Drug drug = system.searchDrugByID(ids[i]);
+            if (drug == null) {
+                return;
+            }
+            double price = drug.getPrice() == prices[i] ? prices[i] + PRICE_NUDGE : prices[i];
+            system.updateDrugInfo(ids[i], new Drug(ids[i], drug.getName(), drug.getStock(), price));
+        }
+
+        private void restorePrices() {
+            for (int i = 0; i < ids.length; i++) {
+                Drug drug = system.searchDrugByID(ids[i]);
+                if (drug != null && drug.getPrice() != prices[i]) {
+                    system.updateDrugInfo(ids[i], new Drug(ids[i], drug.getName(), drug.getStock(), prices[i]));
+                }
+            }
+        }
+    }
+}